@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Сравнение двух JSON-результатов JMH, например сохранённого с прошлого коммита и текущего.
+//Запуск: BenchmarkCompare <baseline.json> <current.json> [порог в процентах, по умолчанию 10].
+//Для каждого бенчмарка с одинаковыми параметрами печатает оба значения и изменение в процентах;
+//изменение в худшую сторону больше порога и больше суммы погрешностей помечается как регрессия,
+//и тогда программа завершается с кодом 1
+public final class BenchmarkCompare {
+
+    private static final double DEFAULT_THRESHOLD = 10.0;
+
+    private BenchmarkCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Использование: BenchmarkCompare <baseline.json> <current.json> [порог, %]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        if (!baselineFile.isFile()) {
+            System.out.println("Базовый результат " + baselineFile + " не найден, сравнение пропущено");
+            return;
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(baselineFile));
+        Map<String, JsonNode> current = index(objectMapper.readTree(new File(args[1])));
+
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-70s %14s %14s %9s%n", "Бенчмарк", "Было", "Стало", "Изм., %");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode metric = entry.getValue().get("primaryMetric");
+            double was = before.get("primaryMetric").get("score").asDouble();
+            double now = metric.get("score").asDouble();
+            double change = was == 0 ? 0 : (now - was) / was * 100;
+            // для пропускной способности хуже - меньше, для времени - больше
+            boolean throughput = "thrpt".equals(entry.getValue().get("mode").asText());
+            boolean worse = throughput ? change < -threshold : change > threshold;
+            // разница в пределах погрешностей измерений регрессией не считается
+            double noise = error(before) + error(entry.getValue());
+            boolean regression = worse && Math.abs(now - was) > noise;
+            System.out.printf("%-70s %14.3f %14.3f %+9.1f %s%s%n", entry.getKey(), was, now, change,
+                    metric.get("scoreUnit").asText(), regression ? "  РЕГРЕССИЯ" : "");
+            if (regression) {
+                regressions.add(entry.getKey());
+            }
+        }
+        if (!regressions.isEmpty()) {
+            System.out.println("Регрессий больше " + threshold + "%: " + regressions.size());
+            System.exit(1);
+        }
+    }
+
+    //Погрешность результата, 0 если она не посчитана (одна итерация измерения)
+    private static double error(JsonNode result) {
+        double error = result.get("primaryMetric").get("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    //Результаты по ключу "бенчмарк режим {параметры}"
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText()
+                    .substring(BenchmarkCompare.class.getPackageName().length() + 1))
+                    .append(' ').append(result.get("mode").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                key.append(' ');
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    key.append(param.getKey()).append('=').append(param.getValue().asText());
+                    if (it.hasNext()) {
+                        key.append(',');
+                    }
+                }
+            }
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.generator.DataGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//Встроенная H2 в памяти, заполненная генератором синтетических данных, и контекст приложения над ней.
+//БД создаётся миграциями и заполняется до старта контекста, поэтому индексы в памяти
+//(популярность, граф дружбы, совместные лайки, реестр id) строятся так же, как при обычном старте
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    //Средние значения на одного пользователя и на один фильм
+    private static final int LIKES_PER_USER = 20;
+    private static final int LIKES_PER_FILM = 50;
+    private static final int FRIENDS_PER_USER = 10;
+    //Фиксированное зерно, чтобы данные были одинаковыми между запусками и коммитами
+    private static final long SEED = 42;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+    private final DataGenerator.Summary data;
+    //БД лежит в файлах, которые удаляются при закрытии
+    private final boolean onDisk;
+
+    private BenchmarkDatabase(String name, int likes, String... properties) {
+        this("jdbc:h2:mem:" + name, false, Math.max(likes / LIKES_PER_USER, 2 * FRIENDS_PER_USER),
+                Math.max(likes / LIKES_PER_FILM, 100), likes, properties);
+    }
+
+    private BenchmarkDatabase(String location, boolean onDisk, int users, int films, int likes,
+                              String... properties) {
+        this.onDisk = onDisk;
+        String url = location + ";DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        data = new DataGenerator(jdbcTemplate).generate(new DataGenerator.Settings(SEED,
+                users, films, likes, FRIENDS_PER_USER, 1.0, 0.8, 0.5, 10_000));
+
+        // Аргументы командной строки важнее config/application.properties из тестовых ресурсов
+        List<String> args = new ArrayList<>(List.of("--spring.datasource.url=" + url,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.flyway.enabled=true",
+                "--spring.sql.init.mode=never",
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    //Создать БД примерно с likes лайками и поднять над ней контекст приложения
+    public static BenchmarkDatabase start(String name, int likes) {
+        return new BenchmarkDatabase(name, likes);
+    }
+
+    //То же с дополнительными настройками приложения вида "имя=значение"
+    public static BenchmarkDatabase start(String name, int likes, String... properties) {
+        return new BenchmarkDatabase(name, likes, properties);
+    }
+
+    //Создать БД с каталогом из films фильмов и по одному лайку на фильм в среднем:
+    //для бенчмарков, которым важен размер каталога, а не количество лайков.
+    //Каталог на миллион фильмов в памяти почти целиком занимает кучу, и замеры превращаются в замеры сборки
+    //мусора, поэтому БД хранится в файлах в target/benchmark-db
+    public static BenchmarkDatabase startCatalog(String name, int films) {
+        return new BenchmarkDatabase("jdbc:h2:file:./target/benchmark-db/" + name, true,
+                Math.max(films / LIKES_PER_USER, 2 * FRIENDS_PER_USER), films, films);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    //Случайный существующий id пользователя
+    public int randomUserId(Random random) {
+        return data.firstUserId() + random.nextInt(data.users());
+    }
+
+    //Случайный существующий id фильма
+    public int randomFilmId(Random random) {
+        return data.firstFilmId() + random.nextInt(data.films());
+    }
+
+    //Случайный id из первых count фильмов, которые после прогрева лежат в кеше
+    public int hotFilmId(Random random, int count) {
+        return data.firstFilmId() + random.nextInt(Math.min(count, data.films()));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        jdbcTemplate.execute(onDisk ? "DROP ALL OBJECTS DELETE FILES" : "DROP ALL OBJECTS");
+    }
+}
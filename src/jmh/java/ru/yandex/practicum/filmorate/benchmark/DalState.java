@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.FriendshipRepository;
+
+//Общее для всех потоков бенчмарка состояние: БД нужного размера и репозитории из контекста приложения.
+//Размер задаётся количеством лайков, другие значения передаются через -p likes=...
+@State(Scope.Benchmark)
+public class DalState {
+
+    @Param({"1000", "100000", "1000000"})
+    public int likes;
+
+    public BenchmarkDatabase database;
+    public FilmRepository filmRepository;
+    public FriendshipRepository friendshipRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("bench" + likes, likes);
+        filmRepository = database.getBean(FilmRepository.class);
+        friendshipRepository = database.getBean(FriendshipRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+}
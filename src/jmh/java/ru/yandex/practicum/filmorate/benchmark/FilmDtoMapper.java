@@ -1,7 +1,6 @@
-package ru.yandex.practicum.filmorate.mappers;
+package ru.yandex.practicum.filmorate.benchmark;
 
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
@@ -13,7 +12,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
-@Component
+//Прежний маппер фильма, собранного одним запросом с LISTAGG: лайки и жанры приходят склеенными в строки.
+//В приложении не используется (фильмы собирает FilmAssembler), оставлен для сравнения в MapperBenchmark
 public class FilmDtoMapper implements RowMapper<FilmDto> {
     @Override
     public FilmDto mapRow(ResultSet rs, int rowNum) throws SQLException {
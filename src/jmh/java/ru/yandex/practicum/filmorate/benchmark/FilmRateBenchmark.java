@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+
+import java.util.concurrent.TimeUnit;
+
+//Изменение рейтинга нескольких горячих фильмов из многих потоков: отдельный UPDATE на каждый лайк
+//против отложенной записи FilmRateAggregator (writeBehind=true)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmRateBenchmark {
+
+    //Количество горячих фильмов, рейтинг которых меняют все потоки
+    private static final int HOT_FILMS = 2;
+
+    @State(Scope.Benchmark)
+    public static class Rates {
+
+        @Param({"false", "true"})
+        public boolean writeBehind;
+
+        BenchmarkDatabase database;
+        FilmRepository filmRepository;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            database = BenchmarkDatabase.start("rate" + writeBehind, 1000,
+                    "filmorate.films.rate-write-behind.enabled=" + writeBehind);
+            filmRepository = database.getBean(FilmRepository.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            database.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void increaseRate(Rates rates, ThreadRandom random) {
+        rates.filmRepository.increaseRate(rates.database.hotFilmId(random.random, HOT_FILMS));
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Горячие методы FilmRepository: пропускная способность и распределение задержек (SampleTime даёт перцентили).
+//Варианты *Concurrent выполняются в 4 потока и показывают, как метод ведёт себя под конкурентной нагрузкой
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmRepositoryBenchmark {
+
+    //Размер топа по умолчанию в GET /films/popular
+    private static final int TOP_LIMIT = 10;
+    //Небольшой набор фильмов, которые после прогрева всегда лежат в кеше
+    private static final int HOT_FILMS = 100;
+
+    @Benchmark
+    public List<FilmDto> getTopFilms(DalState state) {
+        return state.filmRepository.getTopFilms(TOP_LIMIT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<FilmDto> getTopFilmsConcurrent(DalState state) {
+        return state.filmRepository.getTopFilms(TOP_LIMIT);
+    }
+
+    //Случайный фильм из всего каталога: на больших размерах почти всегда промах кеша и чтение из БД
+    @Benchmark
+    public FilmDto getFilm(DalState state, ThreadRandom random) {
+        return state.filmRepository.getFilm(state.database.randomFilmId(random.random));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public FilmDto getFilmConcurrent(DalState state, ThreadRandom random) {
+        return state.filmRepository.getFilm(state.database.randomFilmId(random.random));
+    }
+
+    //Фильм из небольшого горячего набора: путь попадания в кеш
+    @Benchmark
+    public FilmDto getFilmCached(DalState state, ThreadRandom random) {
+        return state.filmRepository.getFilm(state.database.hotFilmId(random.random, HOT_FILMS));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.memory.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmFields;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Поиск фильмов по синтетическому каталогу: только поисковый индекс и полный путь GET /films/search
+//с чтением найденных фильмов из БД. Названия фильмов генератора - «Прилагательное Фамилия»
+//из словарей moby-names-generator, описания - «Сгенерированный фильм N».
+//Запросы: редкое слово названия, два слова названия, часть слова и слово, которое есть у каждого фильма
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmSearchBenchmark {
+
+    //Размер ответа по умолчанию в GET /films/search
+    private static final int LIMIT = 10;
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"1000000"})
+        public int films;
+
+        @Param({"turing", "admiring turing", "tur", "фильм"})
+        public String query;
+
+        private BenchmarkDatabase database;
+        FilmSearchIndex searchIndex;
+        FilmRepository filmRepository;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            database = BenchmarkDatabase.startCatalog("search" + films, films);
+            searchIndex = database.getBean(FilmSearchIndex.class);
+            filmRepository = database.getBean(FilmRepository.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            database.close();
+        }
+    }
+
+    @Benchmark
+    public List<Integer> searchIndex(Catalog catalog) {
+        return catalog.searchIndex.search(catalog.query, LIMIT);
+    }
+
+    @Benchmark
+    public List<FilmDto> searchFilms(Catalog catalog) {
+        return catalog.filmRepository.searchFilms(catalog.query, LIMIT, FilmFields.ALL);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//Общие друзья двух случайных пользователей из графа дружбы в памяти
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FriendshipRepositoryBenchmark {
+
+    @Benchmark
+    public int[] getCommonFriends(DalState state, ThreadRandom random) {
+        return state.friendshipRepository.getCommonFriends(
+                state.database.randomUserId(random.random), state.database.randomUserId(random.random));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int[] getCommonFriendsConcurrent(DalState state, ThreadRandom random) {
+        return state.friendshipRepository.getCommonFriends(
+                state.database.randomUserId(random.random), state.database.randomUserId(random.random));
+    }
+}
@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.mappers.FilmRowMapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+//Стоимость разбора одной строки результата мапперами фильмов без учёта работы БД.
+//Строки один раз читаются из БД и затем многократно разбираются из SimpleResultSet в памяти:
+//FilmDtoMapper - строка с лайками и жанрами, склеенными в строки, FilmRowMapper - строка таблицы films
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    private static final int ROWS = 100;
+
+    //Фильм с МРА, лайками и жанрами одной строкой, как его читал FilmDtoMapper
+    private static final String AGGREGATED_FILMS = "SELECT f.id, f.name, f.description, f.release_date, f.duration, "
+            + "f.rate, m.id AS mpa_id, m.name AS mpa_name, "
+            + "(SELECT LISTAGG(l.user_id, ',') FROM film_likes l WHERE l.film_id = f.id) AS likes, "
+            + "(SELECT LISTAGG(g.id || ':' || g.name, ',') FROM film_genres fg JOIN genre g ON g.id = fg.genre_id "
+            + "WHERE fg.film_id = f.id) AS genres "
+            + "FROM films f LEFT JOIN mpa_rating m ON m.id = f.mpa_rating_id ORDER BY f.rate DESC LIMIT " + ROWS;
+    private static final String FILMS = "SELECT id, name, description, release_date, duration, rate, version, mpa_rating_id "
+            + "FROM films ORDER BY rate DESC LIMIT " + ROWS;
+
+    //БД и мапперы общие для всех потоков
+    @State(Scope.Benchmark)
+    public static class Mappers {
+
+        private BenchmarkDatabase database;
+        FilmDtoMapper filmDtoMapper;
+        FilmRowMapper filmRowMapper;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            database = BenchmarkDatabase.start("mappers", 100_000);
+            filmDtoMapper = new FilmDtoMapper();
+            filmRowMapper = database.getBean(FilmRowMapper.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            database.close();
+        }
+    }
+
+    //Каждому потоку свои копии строк: курсор SimpleResultSet не потокобезопасен
+    @State(Scope.Thread)
+    public static class Rows {
+
+        SimpleResultSet aggregated;
+        SimpleResultSet films;
+
+        @Setup(Level.Trial)
+        public void setUp(Mappers mappers) {
+            aggregated = mappers.database.getJdbcTemplate().query(AGGREGATED_FILMS, MapperBenchmark::copy);
+            films = mappers.database.getJdbcTemplate().query(FILMS, MapperBenchmark::copy);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void filmDtoMapper(Mappers mappers, Rows rows, Blackhole blackhole) throws SQLException {
+        map(rows.aggregated, mappers.filmDtoMapper, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void filmRowMapper(Mappers mappers, Rows rows, Blackhole blackhole) throws SQLException {
+        map(rows.films, mappers.filmRowMapper, blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(ROWS)
+    public void filmDtoMapperConcurrent(Mappers mappers, Rows rows, Blackhole blackhole) throws SQLException {
+        map(rows.aggregated, mappers.filmDtoMapper, blackhole);
+    }
+
+    private static void map(SimpleResultSet rs, RowMapper<?> mapper, Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        int rowNum = 0;
+        while (rs.next()) {
+            blackhole.consume(mapper.mapRow(rs, rowNum++));
+        }
+    }
+
+    //Скопировать результат запроса в SimpleResultSet, который можно перечитывать с начала
+    private static SimpleResultSet copy(ResultSet rs) throws SQLException {
+        SimpleResultSet copy = new SimpleResultSet();
+        copy.setAutoClose(false);
+        ResultSetMetaData meta = rs.getMetaData();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            copy.addColumn(meta.getColumnLabel(i), meta.getColumnType(i), meta.getPrecision(i), meta.getScale(i));
+        }
+        while (rs.next()) {
+            Object[] row = new Object[meta.getColumnCount()];
+            for (int i = 1; i <= row.length; i++) {
+                row[i - 1] = rs.getObject(i);
+            }
+            copy.addRow(row);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Random;
+
+//Свой генератор случайных id у каждого потока бенчмарка, чтобы потоки не конкурировали за общий Random.
+//Зерно зависит только от номера потока, поэтому последовательность запросов повторяется между запусками
+@State(Scope.Thread)
+public class ThreadRandom {
+
+    public Random random;
+
+    @Setup
+    public void setUp(ThreadParams threadParams) {
+        random = new Random(threadParams.getThreadIndex() + 1);
+    }
+}
@@ -1,17 +1,32 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.CursorPageDto;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmFields;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+import ru.yandex.practicum.filmorate.dto.LikeResultDto;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -20,7 +35,22 @@ import java.util.List;
 @Validated
 @AllArgsConstructor
 public class FilmController {
+    //наибольший размер страницы при постраничном получении фильмов
+    private static final int MAX_PAGE_SIZE = 1000;
+    //размер страницы, если указан только курсор
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    //тип содержимого для построчной выгрузки JSON
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    //наибольшее количество рекомендаций в одном ответе
+    private static final int MAX_RECOMMENDATIONS = 100;
+    //наибольшее количество лайков в одном пакете: весь пакет пишется одной транзакцией
+    private static final int MAX_LIKES_BATCH = 1000;
+    //наибольшее количество найденных фильмов в одном ответе
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     FilmService filmService;
+    RecommendationService recommendationService;
+    ObjectMapper objectMapper;
 
     //    добавление фильма
     @PostMapping()
@@ -37,16 +67,67 @@ public class FilmController {
     }
 
     //получить 1 фильм
+    //ETag берётся из версии фильма до сборки FilmDto: при совпадении с If-None-Match ответ 304 без тела
+    //fields - поля фильма в ответе через запятую (например, fields=id,name,rate), по умолчанию все поля
     @GetMapping("/{id}")
-    public ResponseEntity<?> getFilm(@PathVariable int id) {
-        return ResponseEntity.ok(filmService.getFilm(id));
+    public ResponseEntity<?> getFilm(@PathVariable int id,
+                                     @RequestParam(required = false) String fields,
+                                     WebRequest request) {
+        FilmFields filmFields = FilmFields.parse(fields);
+        String eTag = filmService.getFilmETag(id);
+        if (!filmFields.isAll()) {
+            // у ответа с частью полей свой ETag
+            eTag = eTag + "-" + filmFields;
+        }
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(withFields(filmService.getFilm(id, filmFields), filmFields));
     }
 
     //    получение всех фильмов
+    //    если передан after или limit - возвращается страница с курсором следующей страницы
     @GetMapping()
-    public ResponseEntity<List<FilmDto>> getFilms() {
-        log.info("Запрошен список всех фильмов");
-        return ResponseEntity.ok(filmService.getFilms());
+    public ResponseEntity<?> getFilms(@RequestParam(required = false) Integer after,
+                                      @RequestParam(required = false) Integer limit,
+                                      @RequestParam(required = false) String fields) {
+        FilmFields filmFields = FilmFields.parse(fields);
+        if (after == null && limit == null) {
+            log.info("Запрошен список всех фильмов");
+            return ResponseEntity.ok(withFields(filmService.getFilms(filmFields), filmFields));
+        }
+        int cursor = after == null ? 0 : after;
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (cursor < 0) {
+            throw new NotFoundException("Параметр after не может быть отрицательным");
+        }
+        if (pageSize < 1) {
+            throw new NotFoundException("Параметр limit не может быть меньше 1");
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+        log.info("Запрошена страница фильмов после ID {} размером {}", cursor, pageSize);
+        return ResponseEntity.ok(withFields(filmService.getFilmsPage(cursor, pageSize, filmFields), filmFields));
+    }
+
+    //    потоковая выгрузка всего каталога: по одному фильму в строке (NDJSON)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        log.info("Запрошена выгрузка каталога фильмов");
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            filmService.exportFilms(film -> {
+                try {
+                    objectMapper.writeValue(generator, film);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -63,12 +144,78 @@ public class FilmController {
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
+    //лайки фильма постранично: id пользователей по возрастанию и курсор следующей страницы
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<CursorPageDto<Integer>> getLikes(@PathVariable("id") int filmId,
+                                                           @RequestParam(defaultValue = "0") int after,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+        if (after < 0) {
+            throw new NotFoundException("Параметр after не может быть отрицательным");
+        }
+        if (limit < 1) {
+            throw new NotFoundException("Параметр limit не может быть меньше 1");
+        }
+        log.info("Запрошена страница лайков фильма {} после пользователя {}", filmId, after);
+        return ResponseEntity.ok(filmService.getLikesPage(filmId, after, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    //пакетная загрузка лайков (например, накопленных клиентом офлайн)
+    @PostMapping("/likes:batch")
+    public ResponseEntity<List<LikeResultDto>> addLikes(@RequestBody List<LikeDto> likes) {
+        if (likes.size() > MAX_LIKES_BATCH) {
+            throw new NotFoundException("Пакет не может содержать больше " + MAX_LIKES_BATCH + " лайков");
+        }
+        log.info("Попытка поставить пакет из {} лайков", likes.size());
+        return ResponseEntity.ok(filmService.addLikes(likes));
+    }
+
     @GetMapping("/popular")
-    public ResponseEntity<List<FilmDto>> getPopularFilms(@RequestParam(required = false, defaultValue = "10") int count) {
+    public ResponseEntity<?> getPopularFilms(@RequestParam(required = false, defaultValue = "10") int count,
+                                             @RequestParam(required = false) String fields) {
         if (count < 1) {
             throw new NotFoundException("Параметр count не может быть меньше 1");
         }
+        FilmFields filmFields = FilmFields.parse(fields);
         log.info("Запрошен список {} популярных фильмов", count);
-        return ResponseEntity.ok(filmService.getTopFilms(count));
+        return ResponseEntity.ok(withFields(filmService.getTopFilms(count, filmFields), filmFields));
+    }
+
+    //поиск по словам из названия и описания: фильмы, где есть все слова запроса,
+    //слова от трёх символов ищутся и как часть слова
+    @GetMapping("/search")
+    public ResponseEntity<?> searchFilms(@RequestParam String q,
+                                         @RequestParam(defaultValue = "10") int limit,
+                                         @RequestParam(required = false) String fields) {
+        if (q.isBlank()) {
+            throw new NotFoundException("Параметр q не может быть пустым");
+        }
+        if (limit < 1) {
+            throw new NotFoundException("Параметр limit не может быть меньше 1");
+        }
+        FilmFields filmFields = FilmFields.parse(fields);
+        log.info("Запрошен поиск фильмов: {}", q);
+        return ResponseEntity.ok(withFields(
+                filmService.searchFilms(q, Math.min(limit, MAX_SEARCH_RESULTS), filmFields), filmFields));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<FilmDto>> getSimilarFilms(@PathVariable int id,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            throw new NotFoundException("Параметр limit не может быть меньше 1");
+        }
+        log.info("Запрошены рекомендации к фильму {}", id);
+        return ResponseEntity.ok(recommendationService.getSimilarFilms(id, Math.min(limit, MAX_RECOMMENDATIONS)));
+    }
+
+    //Тело ответа, в котором фильмы содержат только поля fields
+    private static Object withFields(Object body, FilmFields fields) {
+        if (fields.isAll()) {
+            return body;
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider().addFilter(FilmFields.FILTER,
+                SimpleBeanPropertyFilter.filterOutAllExcept(fields.propertyNames())));
+        return value;
     }
 }
@@ -2,16 +2,16 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
-
-import java.util.List;
+import ru.yandex.practicum.filmorate.web.ReferenceResponseCache;
 
 @Slf4j
 @RestController
@@ -21,15 +21,22 @@ import java.util.List;
 public class GenreController {
 
     GenreService genreService;
+    ReferenceResponseCache responseCache;
 
+    //готовые ответы с ETag: на запрос с совпадающим If-None-Match Spring отвечает 304 без тела
     @GetMapping("/{id}")
-    public ResponseEntity<?> getGenre(@PathVariable int id) {
-        return ResponseEntity.ok(genreService.getGenre(id));
+    public ResponseEntity<?> getGenre(@PathVariable int id,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                      String acceptEncoding) {
+        ResponseEntity<byte[]> response = responseCache.getGenre(id, acceptEncoding);
+        // жанра нет - сервис выбросит NotFoundException
+        return response != null ? response : ResponseEntity.ok(genreService.getGenre(id));
     }
 
     @GetMapping
-    public ResponseEntity<List<Genre>> getGenres() {
-        return ResponseEntity.ok(genreService.getGenres());
+    public ResponseEntity<byte[]> getGenres(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                            String acceptEncoding) {
+        return responseCache.getGenres(acceptEncoding);
     }
 
 }
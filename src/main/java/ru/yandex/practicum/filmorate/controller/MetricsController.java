@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.dal.LikeJournal;
+import ru.yandex.practicum.filmorate.dal.memory.FilmCache;
+import ru.yandex.practicum.filmorate.logging.AsyncHttpLogSink;
+import ru.yandex.practicum.filmorate.metrics.MetricsRegistry;
+import ru.yandex.practicum.filmorate.metrics.PrometheusWriter;
+
+//Метрики приложения в текстовом формате Prometheus
+@RestController
+@RequestMapping("/metrics")
+@AllArgsConstructor
+public class MetricsController {
+
+    MetricsRegistry metricsRegistry;
+    FilmCache filmCache;
+    AsyncHttpLogSink httpLogSink;
+    LikeJournal likeJournal;
+
+    @GetMapping
+    public ResponseEntity<String> getMetrics() {
+        PrometheusWriter writer = new PrometheusWriter();
+        metricsRegistry.writeTo(writer);
+
+        FilmCache.Stats cache = filmCache.getStats();
+        writer.family("filmorate_film_cache_size", "gauge", "Количество фильмов в кеше")
+                .sample("filmorate_film_cache_size", "", cache.size())
+                .family("filmorate_film_cache_requests_total", "counter", "Обращения к кешу фильмов")
+                .sample("filmorate_film_cache_requests_total", "result=\"hit\"", cache.hits())
+                .sample("filmorate_film_cache_requests_total", "result=\"miss\"", cache.misses())
+                .family("filmorate_film_cache_evictions_total", "counter", "Фильмы, вытесненные из кеша по размеру")
+                .sample("filmorate_film_cache_evictions_total", "", cache.evictions())
+                .family("filmorate_film_cache_invalidations_total", "counter", "Фильмы, сброшенные из кеша после изменения")
+                .sample("filmorate_film_cache_invalidations_total", "", cache.invalidations())
+                .family("filmorate_http_log_queue_size", "gauge", "Обмены в очереди журнала HTTP-запросов")
+                .sample("filmorate_http_log_queue_size", "", httpLogSink.getQueueSize())
+                .family("filmorate_http_log_dropped_total", "counter", "Обмены, не записанные в журнал из-за переполнения очереди")
+                .sample("filmorate_http_log_dropped_total", "", httpLogSink.getDropped())
+                .family("filmorate_like_journal_lag", "gauge", "Записи журнала лайков, ещё не применённые к БД")
+                .sample("filmorate_like_journal_lag", "", likeJournal.getLag());
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, PrometheusWriter.CONTENT_TYPE)
+                .body(writer.toString());
+    }
+}
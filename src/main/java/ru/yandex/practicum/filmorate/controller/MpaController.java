@@ -2,16 +2,16 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.service.MpaService;
-
-import java.util.List;
+import ru.yandex.practicum.filmorate.web.ReferenceResponseCache;
 
 @Slf4j
 @RestController
@@ -22,14 +22,21 @@ import java.util.List;
 public class MpaController {
 
     MpaService mpaService;
+    ReferenceResponseCache responseCache;
 
+    //готовые ответы с ETag: на запрос с совпадающим If-None-Match Spring отвечает 304 без тела
     @GetMapping("/{id}")
-    public ResponseEntity<?> getMpa(@PathVariable int id) {
-        return ResponseEntity.ok(mpaService.getMpa(id));
+    public ResponseEntity<?> getMpa(@PathVariable int id,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                    String acceptEncoding) {
+        ResponseEntity<byte[]> response = responseCache.getMpa(id, acceptEncoding);
+        // рейтинга нет - сервис выбросит NotFoundException
+        return response != null ? response : ResponseEntity.ok(mpaService.getMpa(id));
     }
 
     @GetMapping
-    public ResponseEntity<List<MpaRating>> getAllMpa() {
-        return ResponseEntity.ok(mpaService.getAllMpa());
+    public ResponseEntity<byte[]> getAllMpa(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                            String acceptEncoding) {
+        return responseCache.getAllMpa(acceptEncoding);
     }
 }
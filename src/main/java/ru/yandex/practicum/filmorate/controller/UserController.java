@@ -7,8 +7,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FriendSuggestionDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
@@ -20,7 +24,15 @@ import java.util.List;
 @AllArgsConstructor
 public class UserController {
 
+    //Максимальное количество id в одном запросе GET /users?ids=
+    private static final int MAX_IDS = 1000;
+    //Максимальное количество возможных друзей в одном ответе
+    private static final int MAX_SUGGESTIONS = 100;
+    //Максимальное количество рекомендованных фильмов в одном ответе
+    private static final int MAX_RECOMMENDATIONS = 100;
+
     UserService userService;
+    RecommendationService recommendationService;
 
     //    добавление пользователя
     @PostMapping()
@@ -40,16 +52,25 @@ public class UserController {
 
     //получить 1 пользователя
     @GetMapping("/{id}")
+    //ETag - версия пользователя: на запрос с совпадающим If-None-Match Spring отвечает 304 без тела
     public ResponseEntity<?> getUser(@PathVariable int id) {
         log.info("Получение пользователя по id");
-        return ResponseEntity.ok(userService.getUser(id));
+        UserDto user = userService.getUser(id);
+        return ResponseEntity.ok().eTag(Long.toString(user.getVersion())).body(user);
     }
 
-    //    получение всех пользователей
+    //    получение всех пользователей или пользователей по списку id (?ids=1,2,3)
     @GetMapping()
-    public ResponseEntity<List<UserDto>> getUsers() {
-        log.info("Получение всех пользователей");
-        return ResponseEntity.ok(userService.getUsers());
+    public ResponseEntity<List<UserDto>> getUsers(@RequestParam(required = false) List<Integer> ids) {
+        if (ids == null) {
+            log.info("Получение всех пользователей");
+            return ResponseEntity.ok(userService.getUsers());
+        }
+        log.info("Получение пользователей по списку id: {}", ids);
+        if (ids.size() > MAX_IDS) {
+            throw new NotFoundException("Параметр ids не может содержать больше " + MAX_IDS + " id");
+        }
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -77,4 +98,24 @@ public class UserController {
         log.info("Получение общих друзей пользователей с id {} и {}", id, otherId);
         return ResponseEntity.ok(userService.getMutualFriends(id, otherId));
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public ResponseEntity<List<FriendSuggestionDto>> getFriendSuggestions(@PathVariable int id,
+                                                                          @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получение возможных друзей пользователя с id = {}, не больше {}", id, limit);
+        if (limit < 1) {
+            throw new NotFoundException("Параметр limit не может быть меньше 1");
+        }
+        return ResponseEntity.ok(userService.getFriendSuggestions(id, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<FilmDto>> getRecommendations(@PathVariable int id,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получение рекомендаций фильмов для пользователя с id = {}", id);
+        if (limit < 1) {
+            throw new NotFoundException("Параметр limit не может быть меньше 1");
+        }
+        return ResponseEntity.ok(recommendationService.getRecommendations(id, Math.min(limit, MAX_RECOMMENDATIONS)));
+    }
 }
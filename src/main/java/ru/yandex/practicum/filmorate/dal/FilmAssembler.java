@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.memory.PopularityIndex;
+import ru.yandex.practicum.filmorate.dal.memory.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmFields;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.util.IntList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Дозагружает лайки и жанры для уже прочитанных строк films.
+//Вместо соединения films x film_likes x film_genres в одном GROUP BY с LISTAGG
+//лайки и жанры всей страницы читаются двумя запросами IN (...) сразу в списки int.
+//Если лайки или жанры не запрошены, их запрос не выполняется.
+//При likes-mode=count лайки не читаются никогда: в ответе остаётся только их количество (rate),
+//а список лайков отдаётся постранично через GET /films/{id}/likes.
+//При отложенной записи рейтинга rate в БД отстаёт от лайков до ближайшей записи FilmRateAggregator,
+//поэтому рейтинг берётся из индекса популярности, который меняется сразу вместе с лайком
+@Component
+public class FilmAssembler {
+
+    //наибольшее количество id фильмов в одном условии IN
+    private static final int IN_CHUNK_SIZE = 500;
+    //%s - список параметров условия IN
+    static final String LIKES_BY_FILMS_SQL =
+            "SELECT film_id, user_id FROM film_likes WHERE film_id IN (%s) ORDER BY film_id, user_id";
+    static final String GENRES_BY_FILMS_SQL =
+            "SELECT film_id, genre_id FROM film_genres WHERE film_id IN (%s) ORDER BY film_id, genre_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final FilmRateAggregator rateAggregator;
+    private final PopularityIndex popularityIndex;
+    private final boolean likesAsList;
+
+    public FilmAssembler(JdbcTemplate jdbcTemplate,
+                         ReferenceDataCache referenceDataCache,
+                         FilmRateAggregator rateAggregator,
+                         PopularityIndex popularityIndex,
+                         @Value("${filmorate.films.likes-mode:list}") LikesMode likesMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.rateAggregator = rateAggregator;
+        this.popularityIndex = popularityIndex;
+        this.likesAsList = likesMode == LikesMode.LIST;
+    }
+
+    //Заполнить лайки и жанры фильмов
+    public void fillLikesAndGenres(List<FilmDto> films) {
+        fill(films, FilmFields.ALL);
+    }
+
+    //Заполнить лайки и жанры фильмов, если они есть среди полей fields
+    public void fill(List<FilmDto> films, FilmFields fields) {
+        boolean withLikes = likesAsList && fields.contains(FilmFields.Field.LIKES);
+        boolean withGenres = fields.contains(FilmFields.Field.GENRES);
+        if (!likesAsList) {
+            films.forEach(film -> film.setLikes(null));
+        }
+        if (rateAggregator.isEnabled() && fields.contains(FilmFields.Field.RATE)) {
+            for (FilmDto film : films) {
+                if (popularityIndex.contains(film.getId())) {
+                    film.setRate(popularityIndex.getRate(film.getId()));
+                }
+            }
+        }
+        if (films.isEmpty() || !withLikes && !withGenres) {
+            return;
+        }
+        // позиция фильма в списке по его id
+        Map<Integer, Integer> positions = new HashMap<>(films.size() * 2);
+        for (int i = 0; i < films.size(); i++) {
+            positions.put(films.get(i).getId(), i);
+        }
+        IntList[] likes = new IntList[films.size()];
+        IntList[] genres = new IntList[films.size()];
+
+        List<Integer> ids = new ArrayList<>(positions.keySet());
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            Object[] args = chunk.toArray();
+
+            if (withLikes) {
+                jdbcTemplate.query(LIKES_BY_FILMS_SQL.formatted(placeholders), rs -> {
+                    add(likes, positions.get(rs.getInt(1)), rs.getInt(2));
+                }, args);
+            }
+            if (withGenres) {
+                jdbcTemplate.query(GENRES_BY_FILMS_SQL.formatted(placeholders), rs -> {
+                    add(genres, positions.get(rs.getInt(1)), rs.getInt(2));
+                }, args);
+            }
+        }
+
+        for (int i = 0; i < films.size(); i++) {
+            FilmDto film = films.get(i);
+            if (withLikes) {
+                film.setLikes(likes[i] == null ? Collections.emptyList() : likes[i].asList());
+            }
+            if (withGenres) {
+                film.setGenres(toGenres(genres[i]));
+            }
+        }
+    }
+
+    private List<Genre> toGenres(IntList genreIds) {
+        if (genreIds == null) {
+            return Collections.emptyList();
+        }
+        List<Genre> result = new ArrayList<>(genreIds.size());
+        for (int i = 0; i < genreIds.size(); i++) {
+            Genre genre = referenceDataCache.getGenre(genreIds.get(i));
+            result.add(genre != null ? genre : new Genre(genreIds.get(i)));
+        }
+        return result;
+    }
+
+    private static void add(IntList[] lists, int position, int value) {
+        if (lists[position] == null) {
+            lists[position] = new IntList();
+        }
+        lists[position].add(value);
+    }
+
+    //как передаются лайки в ответах с фильмами
+    public enum LikesMode {
+        //список id пользователей
+        LIST,
+        //только количество в поле rate
+        COUNT
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.memory.FilmCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//Отложенная запись изменений поля films.rate.
+//Вместо отдельного UPDATE на каждый лайк изменения копятся по фильмам в LongAdder
+//и записываются одним пакетным UPDATE раз в flush-interval или при накоплении flush-threshold изменений.
+//Версия фильма в БД увеличивается при записи, а до неё изменения видны по счётчику getChangeCount
+@Slf4j
+@Component
+public class FilmRateAggregator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FilmCache filmCache;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int flushThreshold;
+
+    //накопленные, но ещё не записанные изменения рейтинга по id фильма
+    private final Map<Integer, LongAdder> deltas = new ConcurrentHashMap<>();
+    //количество изменений по id фильма с момента старта, только растёт
+    private final Map<Integer, LongAdder> changeCounts = new ConcurrentHashMap<>();
+    //количество изменений с момента последней записи
+    private final AtomicInteger pendingUpdates = new AtomicInteger();
+    private ScheduledExecutorService scheduler;
+
+    public FilmRateAggregator(JdbcTemplate jdbcTemplate,
+                              FilmCache filmCache,
+                              @Value("${filmorate.films.rate-write-behind.enabled:false}") boolean enabled,
+                              @Value("${filmorate.films.rate-write-behind.flush-interval:500ms}") Duration flushInterval,
+                              @Value("${filmorate.films.rate-write-behind.flush-threshold:1000}") int flushThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.filmCache = filmCache;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.flushThreshold = flushThreshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "film-rate-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись рейтинга включена: интервал {} мс, порог {}", intervalMs, flushThreshold);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //Запомнить изменение рейтинга фильма на delta
+    public void add(int filmId, int delta) {
+        deltas.computeIfAbsent(filmId, id -> new LongAdder()).add(delta);
+        changeCounts.computeIfAbsent(filmId, id -> new LongAdder()).increment();
+        if (pendingUpdates.incrementAndGet() == flushThreshold && !scheduler.isShutdown()) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    //Сколько раз с момента старта менялся рейтинг фильма, включая ещё не записанные в БД изменения
+    public long getChangeCount(int filmId) {
+        LongAdder count = changeCounts.get(filmId);
+        return count == null ? 0 : count.sum();
+    }
+
+    //Отбросить накопленные изменения фильма, когда его рейтинг устанавливается целиком
+    public void discard(int filmId) {
+        LongAdder adder = deltas.get(filmId);
+        if (adder != null) {
+            adder.sumThenReset();
+        }
+    }
+
+    //Записать все накопленные изменения одним пакетным запросом
+    public synchronized void flush() {
+        pendingUpdates.set(0);
+        List<Object[]> batch = new ArrayList<>();
+        // sumThenReset забирает значение каждой ячейки атомарно,
+        // поэтому изменения, пришедшие во время записи, останутся до следующего раза
+        deltas.forEach((filmId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                batch.add(new Object[]{delta, filmId});
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE films SET rate = GREATEST(rate + ?, 0), version = version + 1 WHERE id = ?",
+                    batch);
+            log.info("Записаны изменения рейтинга {} фильмов", batch.size());
+            // в кеше мог остаться рейтинг, прочитанный из БД до записи
+            for (Object[] args : batch) {
+                filmCache.invalidate((Integer) args[1]);
+            }
+        } catch (DataAccessException ex) {
+            log.error("Не удалось записать изменения рейтинга, повторим при следующей записи: {}", ex.getMessage());
+            // возвращаем изменения обратно, чтобы они не потерялись
+            for (Object[] args : batch) {
+                deltas.computeIfAbsent((Integer) args[1], id -> new LongAdder()).add((Long) args[0]);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushInterval.toMillis() * 2, TimeUnit.MILLISECONDS);
+        flush();
+        log.info("Отложенная запись рейтинга остановлена, накопленные изменения записаны");
+    }
+}
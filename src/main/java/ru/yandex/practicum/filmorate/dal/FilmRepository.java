@@ -9,24 +9,60 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.dal.memory.CoLikeModel;
+import ru.yandex.practicum.filmorate.dal.memory.FilmCache;
+import ru.yandex.practicum.filmorate.dal.memory.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.dal.memory.IdRegistry;
+import ru.yandex.practicum.filmorate.dal.memory.PopularityIndex;
+import ru.yandex.practicum.filmorate.dto.CursorPageDto;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmFields;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+import ru.yandex.practicum.filmorate.dto.LikeResultDto;
+import ru.yandex.practicum.filmorate.dto.LikeStatus;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.mappers.FilmDtoMapper;
+import ru.yandex.practicum.filmorate.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class FilmRepository {
 
+    //Колонки таблицы films для FilmRowMapper
+    static final String FILM_COLUMNS =
+            "SELECT id, name, description, release_date, duration, rate, version, mpa_rating_id FROM films ";
+    //Страница фильмов с id больше заданного (keyset-пагинация по первичному ключу)
+    static final String PAGE_CONDITION = "WHERE id > ? ORDER BY id LIMIT ?";
+    //Версия фильма для ETag
+    static final String VERSION_SQL = "SELECT version FROM films WHERE id = ?";
+
     private final JdbcTemplate jdbcTemplate;
     private final LikesRepository likesRepository;
     private final GenresRepository genresRepository;
     private final MpaRepository mpaRepository;
+    private final PopularityIndex popularityIndex;
+    private final FilmRateAggregator rateAggregator;
+    private final FilmRowMapper filmRowMapper;
+    private final FilmAssembler filmAssembler;
+    private final FilmCache filmCache;
+    private final CoLikeModel coLikeModel;
+    private final IdRegistry idRegistry;
+    private final LikeJournal likeJournal;
+    private final FilmSearchIndex searchIndex;
 
     public void addFilm(Film film) {
         checkMpaRatingExists(film.getMpa().getId());
@@ -53,6 +89,8 @@ public class FilmRepository {
             int filmId = keyHolder.getKey().intValue();
 
             film.setId(filmId);
+            idRegistry.registerFilm(filmId);
+            runAfterCommit(() -> searchIndex.put(filmId, film.getName(), film.getDescription()));
             log.info("Выполнено добавление нового фильма в БД. ID фильма: {}", filmId);
 
             log.info("Вызван метод добавления жанров фильма в БД");
@@ -60,6 +98,7 @@ public class FilmRepository {
 
             log.info("Вызван метод добавления лайков фильма в БД");
             film.setLikes(likesRepository.setLikesToFilm(filmId, film.getLikes()));
+            coLikeModel.replaceFilmLikes(filmId, List.of(), film.getLikes());
 
             updateRate(filmId, film.getLikes().size());
 
@@ -86,8 +125,8 @@ public class FilmRepository {
         checkMpaRatingExists(film.getMpa().getId());
         genresRepository.checkGenres(film.getGenres());
 
-        String sql = "UPDATE films SET name=?, description=?, release_date=?, duration=?, rate=?, mpa_rating_id=? " +
-                "WHERE id=?";
+        String sql = "UPDATE films SET name=?, description=?, release_date=?, duration=?, rate=?, mpa_rating_id=?, " +
+                "version = version + 1 WHERE id=?";
         try {
             // Выполняем запрос с указанием RETURN_GENERATED_KEYS
             jdbcTemplate.update(sql,
@@ -99,6 +138,7 @@ public class FilmRepository {
                     film.getMpa().getId(),
                     film.getId());
             log.info("Выполнено обновление фильма: {}", film.getId());
+            runAfterCommit(() -> searchIndex.put(film.getId(), film.getName(), film.getDescription()));
 
             // Добавляем жанры
             log.info("Вызван метод обновления жанров фильма в БД");
@@ -106,7 +146,9 @@ public class FilmRepository {
 
             // Добавляем лайки
             log.info("Вызван метод обновления лайков фильма в БД");
-            likesRepository.updateLikes(film.getId(), film.getLikes());
+            List<Integer> oldLikes = likesRepository.getLikes(film.getId());
+            coLikeModel.replaceFilmLikes(film.getId(), oldLikes,
+                    likesRepository.updateLikes(film.getId(), film.getLikes()));
 
             // Обновляем поле rate (количество лайков)
             updateRate(film.getId(), film.getLikes().size());
@@ -114,31 +156,71 @@ public class FilmRepository {
         } catch (DataIntegrityViolationException ex) {
             log.error("Во время обновления фильма : {} произошла непредвиденная ошибка", film.getId());
             throw new DataIntegrityViolationException("Не удалось обновить фильм");
+        } finally {
+            invalidateFilm(film.getId());
         }
     }
 
-    //Получить (1) + жанры + лайки
+    //Получить (1) + жанры + лайки.
+    //Фильм читается через кеш, из БД он загружается только при отсутствии в кеше
     public FilmDto getFilm(int filmId) {
+        return filmCache.get(filmId, this::loadFilm);
+    }
+
+    //ETag фильма: его версия в БД, без чтения лайков и жанров. Версия собранного фильма берётся из кеша.
+    //При отложенной записи рейтинга версия в БД меняется только при записи накопленных изменений,
+    //поэтому к ней добавляется счётчик изменений рейтинга фильма в памяти
+    public String getFilmETag(int filmId) {
+        long changes = rateAggregator.getChangeCount(filmId);
+        FilmDto cached = filmCache.peek(filmId);
+        long version = cached != null ? cached.getVersion() : loadVersion(filmId);
+        return changes == 0 ? Long.toString(version) : version + "." + changes;
+    }
+
+    private long loadVersion(int filmId) {
+        try {
+            return jdbcTemplate.queryForObject(VERSION_SQL, Long.class, filmId);
+        } catch (EmptyResultDataAccessException ex) {
+            log.error("Фильм с ID {} не найден", filmId);
+            throw new NotFoundException("Фильм с ID: " + filmId + " не существует. " + ex);
+        } catch (DataAccessException ex) {
+            log.error("Ошибка при выполнении запроса: {}", ex.getMessage());
+            throw new DataIntegrityViolationException("Не удалось получить версию фильма. " + ex);
+        }
+    }
+
+    //Получить фильм с полями fields.
+    //Фильм целиком читается через кеш. Для части полей подходит фильм из кеша, а если его там нет,
+    //из БД читаются только нужные колонки и таблицы, и такой фильм в кеш не попадает
+    public FilmDto getFilm(int filmId, FilmFields fields) {
+        if (fields.isAll()) {
+            return getFilm(filmId);
+        }
+        FilmDto cached = filmCache.peek(filmId);
+        if (cached != null) {
+            return cached;
+        }
+        log.info("Получаем поля {} фильма ID {}", fields, filmId);
+        try {
+            FilmDto film = jdbcTemplate.queryForObject(select(fields) + "WHERE id = ?",
+                    filmRowMapper.forFields(fields), filmId);
+            filmAssembler.fill(List.of(film), fields);
+            return film;
+        } catch (EmptyResultDataAccessException ex) {
+            log.error("Фильм с ID {} не найден", filmId);
+            throw new NotFoundException("Фильм с ID: " + filmId + " не существует. " + ex);
+        } catch (DataAccessException ex) {
+            log.error("Ошибка при выполнении запроса: {}", ex.getMessage());
+            throw new DataIntegrityViolationException("Не удалось получить фильм. " + ex);
+        }
+    }
+
+    private FilmDto loadFilm(int filmId) {
         log.info("Получаем данные о фильме ID {}", filmId);
         try {
-            String sql = "SELECT f.id, " +
-                    "       f.name, " +
-                    "       f.description, " +
-                    "       f.release_date, " +
-                    "       f.duration, " +
-                    "       f.rate, " +
-                    "       m.id AS mpa_id, " +
-                    "       m.name AS mpa_name, " +
-                    "       LISTAGG(DISTINCT COALESCE(fl.user_id), ',') WITHIN GROUP (ORDER BY fl.user_id) AS likes, " +
-                    "       LISTAGG(DISTINCT CONCAT(COALESCE(g.id), ':', COALESCE(g.name, '')), ',') WITHIN GROUP (ORDER BY g.id) AS genres " +
-                    "FROM films f " +
-                    "LEFT JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
-                    "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                    "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
-                    "LEFT JOIN genre g ON fg.genre_id = g.id " +
-                    "WHERE f.id = ? " +
-                    "GROUP BY f.id";
-            return jdbcTemplate.queryForObject(sql, new FilmDtoMapper(), filmId);
+            FilmDto film = jdbcTemplate.queryForObject(FILM_COLUMNS + "WHERE id = ?", filmRowMapper, filmId);
+            filmAssembler.fillLikesAndGenres(List.of(film));
+            return film;
         } catch (EmptyResultDataAccessException ex) {
             log.error("Фильм с ID {} не найден", filmId);
             throw new NotFoundException("Фильм с ID: " + filmId + " не существует. " + ex);
@@ -150,81 +232,235 @@ public class FilmRepository {
 
     //Получить (список) + жанры + лайки
     public List<FilmDto> getFilms() {
+        return getFilms(FilmFields.ALL);
+    }
+
+    //Получить (список) с полями fields
+    public List<FilmDto> getFilms(FilmFields fields) {
         try {
-            String sql = "SELECT f.id, " +
-                    "       f.name, " +
-                    "       f.description, " +
-                    "       f.release_date, " +
-                    "       f.duration, " +
-                    "       f.rate, " +
-                    "       m.id AS mpa_id, " +
-                    "       m.name AS mpa_name, " +
-                    "       LISTAGG(DISTINCT COALESCE(fl.user_id), ',') WITHIN GROUP (ORDER BY fl.user_id) AS likes, " +
-                    "       LISTAGG(DISTINCT CONCAT(COALESCE(g.id), ':', COALESCE(g.name, '')), ',') WITHIN GROUP (ORDER BY g.id) AS genres " +
-                    "FROM films f " +
-                    "LEFT JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
-                    "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                    "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
-                    "LEFT JOIN genre g ON fg.genre_id = g.id " +
-                    "GROUP BY f.id";
-            return jdbcTemplate.query(sql, new FilmDtoMapper());
-        } catch (EmptyResultDataAccessException ex) {
-            log.error("Нет фильмов в БД");
-            throw new NotFoundException("Фильмы в БД не найдены. " + ex);
+            List<FilmDto> films = jdbcTemplate.query(select(fields) + "ORDER BY id", filmRowMapper.forFields(fields));
+            filmAssembler.fill(films, fields);
+            return films;
         } catch (DataAccessException ex) {
             log.error("Во время получения фильмов произошла непредвиденная ошибка: {}", ex.getMessage());
             throw new DataIntegrityViolationException("Не удалось получить фильмы");
         }
     }
 
-    //Получить топ (10) фильмов
+    //Получить страницу фильмов с id больше afterId (keyset-пагинация)
+    public CursorPageDto<FilmDto> getFilmsPage(int afterId, int limit) {
+        return getFilmsPage(afterId, limit, FilmFields.ALL);
+    }
+
+    //Получить страницу фильмов с полями fields
+    public CursorPageDto<FilmDto> getFilmsPage(int afterId, int limit, FilmFields fields) {
+        log.info("Получаем страницу фильмов после ID {}, размер страницы {}", afterId, limit);
+        try {
+            // Берём на одну запись больше, чтобы узнать, есть ли следующая страница
+            List<FilmDto> films = jdbcTemplate.query(select(fields) + PAGE_CONDITION,
+                    filmRowMapper.forFields(fields), afterId, limit + 1);
+
+            Integer nextCursor = null;
+            if (films.size() > limit) {
+                films = films.subList(0, limit);
+                nextCursor = films.get(limit - 1).getId();
+            }
+            filmAssembler.fill(films, fields);
+            return new CursorPageDto<>(films, nextCursor);
+        } catch (DataAccessException ex) {
+            log.error("Во время получения страницы фильмов произошла непредвиденная ошибка: {}", ex.getMessage());
+            throw new DataIntegrityViolationException("Не удалось получить фильмы");
+        }
+    }
+
+    //Выгрузить все фильмы, передавая их в consumer порциями по fetchSize фильмов.
+    //Каждая порция читается, собирается и отдаётся до чтения следующей, поэтому каталог в памяти не накапливается
+    public void exportFilms(int fetchSize, Consumer<FilmDto> consumer) {
+        log.info("Выгружаем каталог фильмов порциями по {}", fetchSize);
+        int lastId = 0;
+        try {
+            List<FilmDto> chunk;
+            do {
+                int after = lastId;
+                chunk = jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(FILM_COLUMNS + PAGE_CONDITION);
+                    ps.setFetchSize(fetchSize);
+                    ps.setInt(1, after);
+                    ps.setInt(2, fetchSize);
+                    return ps;
+                }, filmRowMapper);
+                filmAssembler.fillLikesAndGenres(chunk);
+                for (FilmDto film : chunk) {
+                    consumer.accept(film);
+                    lastId = film.getId();
+                }
+            } while (chunk.size() == fetchSize);
+        } catch (DataAccessException ex) {
+            log.error("Во время выгрузки фильмов произошла непредвиденная ошибка: {}", ex.getMessage());
+            throw new DataIntegrityViolationException("Не удалось выгрузить фильмы");
+        }
+    }
+
+    //Получить топ (10) фильмов.
+    //Порядок берётся из индекса популярности в памяти, из БД читаются только сами фильмы топа
     public List<FilmDto> getTopFilms(int limit) {
+        return getTopFilms(limit, FilmFields.ALL);
+    }
+
+    //Получить топ фильмов с полями fields
+    public List<FilmDto> getTopFilms(int limit, FilmFields fields) {
+        return getFilmsByIds(popularityIndex.top(limit), fields);
+    }
+
+    //Найти фильмы по словам из названия и описания.
+    //Порядок и id берутся из поискового индекса в памяти, из БД читаются только найденные фильмы
+    public List<FilmDto> searchFilms(String query, int limit, FilmFields fields) {
+        return getFilmsByIds(searchIndex.search(query, limit), fields);
+    }
+
+    //Получить фильмы по списку id + жанры + лайки в порядке следования id в списке
+    public List<FilmDto> getFilmsByIds(List<Integer> ids) {
+        return getFilmsByIds(ids, FilmFields.ALL);
+    }
+
+    //Получить фильмы по списку id с полями fields в порядке следования id в списке
+    public List<FilmDto> getFilmsByIds(List<Integer> ids, FilmFields fields) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
         try {
-            String sql = "SELECT f.id, " +
-                    "       f.name, " +
-                    "       f.description, " +
-                    "       f.release_date, " +
-                    "       f.duration, " +
-                    "       f.rate, " +
-                    "       m.id AS mpa_id, " +
-                    "       m.name AS mpa_name, " +
-                    "       LISTAGG(DISTINCT COALESCE(fl.user_id), ',') WITHIN GROUP (ORDER BY fl.user_id) AS likes, " +
-                    "       LISTAGG(DISTINCT CONCAT(COALESCE(g.id), ':', COALESCE(g.name, '')), ',') WITHIN GROUP (ORDER BY g.id) AS genres " +
-                    "FROM films f " +
-                    "LEFT JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
-                    "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                    "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
-                    "LEFT JOIN genre g ON fg.genre_id = g.id " +
-                    "GROUP BY f.id " +
-                    "ORDER BY f.rate DESC " +
-                    "LIMIT ?";
-
-            return jdbcTemplate.query(sql, new FilmDtoMapper(), limit);
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            Map<Integer, FilmDto> filmsById = new HashMap<>();
+            for (FilmDto film : jdbcTemplate.query(select(fields) + "WHERE id IN (" + placeholders + ")",
+                    filmRowMapper.forFields(fields), ids.toArray())) {
+                filmsById.put(film.getId(), film);
+            }
+
+            List<FilmDto> result = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                FilmDto film = filmsById.get(id);
+                if (film != null) {
+                    result.add(film);
+                }
+            }
+            filmAssembler.fill(result, fields);
+            return result;
         } catch (DataAccessException ex) {
             log.error("Во время получения фильмов произошла непредвиденная ошибка: {}", ex.getMessage());
             throw new DataIntegrityViolationException("Не удалось получить фильмы");
         }
     }
 
-    //Поставить лайк
+    //Начало запроса к films с колонками полей fields
+    private static String select(FilmFields fields) {
+        return fields.isAll() ? FILM_COLUMNS : "SELECT " + fields.columns() + " FROM films ";
+    }
+
+    //Страница id пользователей, лайкнувших фильм
+    public CursorPageDto<Integer> getLikesPage(int filmId, int afterUserId, int limit) {
+        checkFilmExists(filmId);
+        return likesRepository.getLikesPage(filmId, afterUserId, limit);
+    }
+
+    //Поставить лайк.
+    //С журналом лайков запрос подтверждается после записи в журнал, а в БД лайк попадает в фоне
     public void addLike(int userId, int filmId) {
+        if (likeJournal.isEnabled()) {
+            checkLikeParticipants(userId, filmId);
+            likeJournal.addLike(filmId, userId);
+            return;
+        }
         likesRepository.addLike(filmId, userId);
+        coLikeModel.addLike(filmId, userId);
         increaseRate(filmId);
+        invalidateFilm(filmId);
     }
 
     //Удалить лайк
     public void deleteLike(int userId, int filmId) {
-        likesRepository.removeLike(filmId, userId);
+        if (likeJournal.isEnabled()) {
+            // как и без журнала, снятие несуществующего лайка не ошибка
+            likeJournal.removeLike(filmId, userId);
+            return;
+        }
+        if (likesRepository.removeLike(filmId, userId) == 0) {
+            // лайка не было: рейтинг, индексы и кеш не меняются
+            return;
+        }
+        coLikeModel.removeLike(filmId, userId);
         decreaseRate(filmId);
+        invalidateFilm(filmId);
     }
 
-    public void checkFilmExists(int filmId) {
-        String sql = "SELECT COUNT(*) FROM films WHERE id = ?";
-        Boolean isExists = jdbcTemplate.queryForObject(sql, Boolean.class, filmId);
+    //Поставить пакет лайков.
+    //Рейтинг всех затронутых фильмов увеличивается одним сгруппированным UPDATE
+    @Transactional
+    public List<LikeResultDto> addLikes(List<LikeDto> likes) {
+        List<LikeResultDto> results = likesRepository.addLikes(likes);
+
+        Map<Integer, Integer> addedByFilm = new LinkedHashMap<>();
+        List<LikeResultDto> addedLikes = new ArrayList<>();
+        for (LikeResultDto result : results) {
+            if (result.getStatus() == LikeStatus.ADDED) {
+                addedByFilm.merge(result.getFilmId(), 1, Integer::sum);
+                addedLikes.add(result);
+            }
+        }
+        if (addedByFilm.isEmpty()) {
+            return results;
+        }
+        // в модель рекомендаций лайки попадают только после коммита пакета
+        runAfterCommit(() -> addedLikes.forEach(like -> coLikeModel.addLike(like.getFilmId(), like.getUserId())));
+
+        if (rateAggregator.isEnabled()) {
+            // отложенная запись рейтинга не должна получить лайки откатившегося пакета
+            runAfterCommit(() -> addedByFilm.forEach(rateAggregator::add));
+        } else {
+            StringBuilder sql = new StringBuilder("UPDATE films SET version = version + 1, rate = rate + CASE id");
+            List<Object> args = new ArrayList<>();
+            addedByFilm.forEach((filmId, added) -> {
+                sql.append(" WHEN ? THEN ?");
+                args.add(filmId);
+                args.add(added);
+            });
+            sql.append(" ELSE 0 END WHERE id IN (")
+                    .append(String.join(",", Collections.nCopies(addedByFilm.size(), "?")))
+                    .append(")");
+            args.addAll(addedByFilm.keySet());
+            jdbcTemplate.update(sql.toString(), args.toArray());
+            log.info("Рейтинг {} фильмов актуализирован", addedByFilm.size());
+        }
+        runAfterCommit(() -> addedByFilm.forEach(popularityIndex::increment));
+        addedByFilm.keySet().forEach(this::invalidateFilm);
+        return results;
+    }
+
+    //Сбросить фильм в кеше после изменения.
+    //Внутри транзакции сбрасываем ещё раз после коммита: иначе параллельное чтение
+    //успело бы положить в кеш данные, которые были в БД до коммита
+    private void invalidateFilm(int filmId) {
+        filmCache.invalidate(filmId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            runAfterCommit(() -> filmCache.invalidate(filmId));
+        }
+    }
 
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, filmId);
+    //Выполнить action после коммита текущей транзакции или сразу, если транзакции нет
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        if (count == null || count == 0) {
+    public void checkFilmExists(int filmId) {
+        if (!idRegistry.filmExists(filmId)) {
             log.warn("Фильм с ID {} не найден в базе данных", filmId);
             throw new NotFoundException("Фильм с ID " + filmId + " не существует");
         }
@@ -232,19 +468,33 @@ public class FilmRepository {
         log.info("Фильм с ID {} найден в базе данных", filmId);
     }
 
+    //Те же проверки и сообщения, что и при записи лайка сразу в БД
+    private void checkLikeParticipants(int userId, int filmId) {
+        if (!idRegistry.filmExists(filmId)) {
+            log.error("Фильм с id {} не найден", filmId);
+            throw new NotFoundException("Фильм с id " + filmId + " не найден");
+        }
+        if (!idRegistry.userExists(userId)) {
+            log.error("Пользователь с id {} не найден", userId);
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+    }
+
     private void checkMpaRatingExists(int ratingId) {
-        String sql = "SELECT COUNT(*) FROM mpa_rating WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, ratingId);
-        if (count == null || count == 0) {
+        if (!mpaRepository.mpaExists(ratingId)) {
             log.error("Пользователь с ID {} не найден", ratingId);
             throw new NotFoundException("Пользователь с ID " + ratingId + " не найден");
         }
     }
 
     public void updateRate(int filmId, int rate) {
-        String updateRateSql = "UPDATE films SET rate = ? WHERE id = ?";
+        String updateRateSql = "UPDATE films SET rate = ?, version = version + 1 WHERE id = ?";
+        // Рейтинг устанавливается целиком, отложенные изменения больше не нужны
+        rateAggregator.discard(filmId);
         try {
-            jdbcTemplate.update(updateRateSql, rate, filmId);
+            if (jdbcTemplate.update(updateRateSql, rate, filmId) > 0) {
+                popularityIndex.put(filmId, rate);
+            }
             log.info("Значение поля rate актуализировано");
         } catch (DataIntegrityViolationException ex) {
             log.error("Не удалось актуализировать значение поля rate ");
@@ -252,10 +502,18 @@ public class FilmRepository {
     }
 
     public void increaseRate(int filmId) {
+        if (rateAggregator.isEnabled()) {
+            // Изменение будет записано в БД пакетно вместе с другими
+            rateAggregator.add(filmId, 1);
+            popularityIndex.increment(filmId, 1);
+            return;
+        }
         // Увеличиваем количество лайков
-        String updateRateSql = "UPDATE films SET rate = rate + 1 WHERE id = ?";
+        String updateRateSql = "UPDATE films SET rate = rate + 1, version = version + 1 WHERE id = ?";
         try {
-            jdbcTemplate.update(updateRateSql, filmId);
+            if (jdbcTemplate.update(updateRateSql, filmId) > 0) {
+                popularityIndex.increment(filmId, 1);
+            }
             log.info("Значение поля rate актуализировано");
         } catch (DataIntegrityViolationException ex) {
             log.error("Не удалось актуализировать значение поля rate ");
@@ -263,10 +521,18 @@ public class FilmRepository {
     }
 
     public void decreaseRate(int filmId) {
+        if (rateAggregator.isEnabled()) {
+            // Изменение будет записано в БД пакетно вместе с другими
+            rateAggregator.add(filmId, -1);
+            popularityIndex.increment(filmId, -1);
+            return;
+        }
         // Уменьшаем количество лайков
-        String updateRateSql = "UPDATE films SET rate = GREATEST(rate - 1, 0) WHERE id = ?";
+        String updateRateSql = "UPDATE films SET rate = GREATEST(rate - 1, 0), version = version + 1 WHERE id = ?";
         try {
-            jdbcTemplate.update(updateRateSql, filmId);
+            if (jdbcTemplate.update(updateRateSql, filmId) > 0) {
+                popularityIndex.increment(filmId, -1);
+            }
             log.info("Значение поля rate актуализировано");
         } catch (DataIntegrityViolationException ex) {
             log.error("Не удалось актуализировать значение поля rate ");
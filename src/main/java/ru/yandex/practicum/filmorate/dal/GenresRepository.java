@@ -7,12 +7,15 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.memory.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mappers.GenreMapper;
 import ru.yandex.practicum.filmorate.model.Genre;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Repository
@@ -20,6 +23,7 @@ import java.util.stream.Collectors;
 public class GenresRepository {
 
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
 
     public List<Genre> getGenresByFilm(int id) {
         log.info("Получаем список жанров для фильма ID {}", id);
@@ -82,21 +86,13 @@ public class GenresRepository {
             return;
         }
 
-        // Извлекаем id из объектов Genre
-        Set<Integer> genreIds = genres.stream()
-                .map(Genre::getId)
-                .collect(Collectors.toSet());
-
-        // Формируем строку плейсхолдеров
-        String placeholders = String.join(",", Collections.nCopies(genreIds.size(), "?"));
-        String sql = "SELECT id FROM genre WHERE id IN (" + placeholders + ")";
-
-        // Выполняем запрос и получаем найденные id
-        List<Integer> foundGenreIds = jdbcTemplate.queryForList(sql, Integer.class, genreIds.toArray());
-
-        // Находим отсутствующие жанры
-        Set<Integer> notFoundGenreIds = new HashSet<>(genreIds);
-        notFoundGenreIds.removeAll(foundGenreIds);
+        // Проверяем жанры по справочнику в памяти, без запроса к БД
+        Set<Integer> notFoundGenreIds = new HashSet<>();
+        for (Genre genre : genres) {
+            if (referenceDataCache.getGenre(genre.getId()) == null) {
+                notFoundGenreIds.add(genre.getId());
+            }
+        }
 
         // Если есть отсутствующие жанры, выбрасываем исключение
         if (!notFoundGenreIds.isEmpty()) {
@@ -109,29 +105,16 @@ public class GenresRepository {
 
     public Genre getGenre(int id) {
         log.info("Получаем Жанр ID {}", id);
-        try {
-            String sql = "SELECT * FROM genre WHERE id=?";
-            return jdbcTemplate.queryForObject(sql, new GenreMapper(), id);
-        } catch (EmptyResultDataAccessException ex) {
+        Genre genre = referenceDataCache.getGenre(id);
+        if (genre == null) {
             log.error("Не удалось получить жанр");
             throw new NotFoundException("Жанр с ID " + id + " не найден");
-        } catch (DataAccessException ex) {
-            log.error("Во время получения жанра произошла непредвиденная ошибка: {}", ex.getMessage());
-            throw new DataIntegrityViolationException("Не удалось получить жанр");
         }
+        return genre;
     }
 
     public List<Genre> getGenres() {
         log.info("Получаем список всех жанров");
-        try {
-            String sql = "SELECT id,name FROM genre";
-            return jdbcTemplate.query(sql, new GenreMapper());
-        } catch (EmptyResultDataAccessException ex) {
-            log.error("Не удалось получить жанры");
-            throw new NotFoundException("Не удалось получить жанры");
-        } catch (DataAccessException ex) {
-            log.error("Во время получения жанров произошла непредвиденная ошибка: {}", ex.getMessage());
-            throw new DataIntegrityViolationException("Не удалось получить жанры");
-        }
+        return referenceDataCache.getGenres();
     }
 }
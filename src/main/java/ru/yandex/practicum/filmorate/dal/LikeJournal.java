@@ -0,0 +1,454 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.memory.CoLikeModel;
+import ru.yandex.practicum.filmorate.dal.memory.FilmCache;
+import ru.yandex.practicum.filmorate.dal.memory.PopularityIndex;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+//Журнал лайков с групповой фиксацией.
+//Лайк или его снятие дописывается в локальный журнал, и запрос подтверждается, как только запись сброшена на диск.
+//Поток записи журнала сбрасывает на диск сразу всё, что накопилось за время предыдущего сброса,
+//поэтому один fsync подтверждает много запросов. Поток применения переносит подтверждённые записи
+//в film_likes и films.rate пакетами, каждый пакет - в одной транзакции.
+//Журнал разбит на сегменты; сегмент удаляется, когда все его записи применены.
+//При старте неприменённые записи из оставшихся сегментов применяются до приёма запросов.
+//Повторное применение безопасно: для каждой пары фильм-пользователь важно только последнее действие,
+//а рейтинг меняется только на действительно добавленные и удалённые лайки.
+//Если запись пакета на диск не удалась, сегмент обрезается до начала пакета, и следующий пакет пишется
+//с целой записи. Обрывки записей, оставшиеся после аварийной остановки, при повторе пропускаются побайтно
+//до следующей записи с верной контрольной суммой
+@Slf4j
+@Component
+public class LikeJournal {
+
+    //запись: действие (1 байт), id фильма, id пользователя, CRC32C первых 9 байт
+    private static final int RECORD_SIZE = 13;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final String SEGMENT_SUFFIX = ".log";
+    //сколько пакетов ждут применения, прежде чем запись журнала приостанавливается
+    private static final int APPLY_QUEUE_SIZE = 1024;
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final LikesRepository likesRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CoLikeModel coLikeModel;
+    private final PopularityIndex popularityIndex;
+    private final FilmCache filmCache;
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private final int applyBatchSize;
+
+    //записи, ожидающие сброса на диск, и их общее завершение
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private List<Entry> pending = new ArrayList<>();
+    private CompletableFuture<Void> pendingDurable = new CompletableFuture<>();
+
+    private final BlockingQueue<List<Entry>> applyQueue = new ArrayBlockingQueue<>(APPLY_QUEUE_SIZE);
+    //закрытые сегменты в порядке записи
+    private final ConcurrentLinkedDeque<Segment> closedSegments = new ConcurrentLinkedDeque<>();
+    private volatile long writtenSeq;
+    private volatile long appliedSeq;
+    private volatile boolean running;
+
+    private FileChannel channel;
+    private Path segmentPath;
+    private Thread writerThread;
+    private Thread applierThread;
+
+    public LikeJournal(LikesRepository likesRepository,
+                       JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       CoLikeModel coLikeModel,
+                       PopularityIndex popularityIndex,
+                       FilmCache filmCache,
+                       @Value("${filmorate.likes.journal.enabled:false}") boolean enabled,
+                       @Value("${filmorate.likes.journal.directory:./db/likes-journal}") Path directory,
+                       @Value("${filmorate.likes.journal.segment-size:67108864}") long segmentBytes,
+                       @Value("${filmorate.likes.journal.apply-batch-size:5000}") int applyBatchSize) {
+        this.likesRepository = likesRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.coLikeModel = coLikeModel;
+        this.popularityIndex = popularityIndex;
+        this.filmCache = filmCache;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.applyBatchSize = applyBatchSize;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        replay();
+        openSegment();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "like-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        applierThread = new Thread(this::applyLoop, "like-journal-applier");
+        applierThread.setDaemon(true);
+        applierThread.start();
+        log.info("Журнал лайков включён: каталог {}, сегменты по {} байт", directory.toAbsolutePath(), segmentBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //Записать в журнал лайк пользователя userId фильму filmId и дождаться сброса на диск
+    public void addLike(int filmId, int userId) {
+        append(new Entry(ADD, filmId, userId));
+    }
+
+    //Записать в журнал снятие лайка и дождаться сброса на диск
+    public void removeLike(int filmId, int userId) {
+        append(new Entry(REMOVE, filmId, userId));
+    }
+
+    //Количество записей, сброшенных на диск, но ещё не применённых к БД
+    public long getLag() {
+        return writtenSeq - appliedSeq;
+    }
+
+    //Остановить запись и применение, применив всё, что уже подтверждено
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writerThread.join();
+        applierThread.join();
+        channel.close();
+        closedSegments.add(new Segment(segmentPath, writtenSeq));
+        deleteAppliedSegments();
+        log.info("Журнал лайков остановлен, неприменённых записей: {}", getLag());
+    }
+
+    private void append(Entry entry) {
+        CompletableFuture<Void> durable;
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Журнал лайков остановлен");
+            }
+            pending.add(entry);
+            durable = pendingDurable;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            durable.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Запись лайка в журнал прервана", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Не удалось записать лайк в журнал", ex.getCause());
+        }
+    }
+
+    //Поток записи: забирает всё накопленное, пишет одним вызовом и сбрасывает на диск
+    private void writeLoop() {
+        while (true) {
+            List<Entry> batch;
+            CompletableFuture<Void> durable;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && running) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    break;
+                }
+                batch = pending;
+                durable = pendingDurable;
+                pending = new ArrayList<>();
+                pendingDurable = new CompletableFuture<>();
+            } finally {
+                lock.unlock();
+            }
+            long batchStart = -1;
+            try {
+                batchStart = channel.position();
+                write(batch);
+                writtenSeq += batch.size();
+                durable.complete(null);
+                applyQueue.put(batch);
+                if (channel.size() >= segmentBytes) {
+                    channel.close();
+                    closedSegments.add(new Segment(segmentPath, writtenSeq));
+                    openSegment();
+                }
+            } catch (IOException ex) {
+                log.error("Не удалось записать {} записей в журнал лайков: {}", batch.size(), ex.getMessage());
+                discardTail(batchStart);
+                durable.completeExceptionally(ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                durable.completeExceptionally(ex);
+                return;
+            }
+        }
+    }
+
+    //Убрать из сегмента недописанный пакет: он не подтверждён и не должен примениться при повторе.
+    //Если обрезать не получается, сегмент закрывается и запись продолжается в новый
+    private void discardTail(long batchStart) {
+        if (batchStart >= 0) {
+            try {
+                channel.truncate(batchStart);
+                channel.position(batchStart);
+                channel.force(false);
+                return;
+            } catch (IOException ex) {
+                log.error("Не удалось обрезать сегмент журнала лайков {}: {}", segmentPath, ex.getMessage());
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            log.warn("Не удалось закрыть сегмент журнала лайков {}: {}", segmentPath, ex.getMessage());
+        }
+        closedSegments.add(new Segment(segmentPath, writtenSeq));
+        try {
+            openSegment();
+        } catch (IOException ex) {
+            // следующий пакет снова упадёт на закрытом канале и снова попробует открыть сегмент
+            log.error("Не удалось открыть новый сегмент журнала лайков: {}", ex.getMessage());
+        }
+    }
+
+    private void write(List<Entry> batch) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+        CRC32C crc = new CRC32C();
+        for (Entry entry : batch) {
+            int start = buffer.position();
+            buffer.put(entry.action()).putInt(entry.filmId()).putInt(entry.userId());
+            crc.reset();
+            crc.update(buffer.array(), start, RECORD_SIZE - 4);
+            buffer.putInt((int) crc.getValue());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    //Поток применения: объединяет подтверждённые пакеты и применяет их, пока не получится
+    private void applyLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (running || !applyQueue.isEmpty() || writerThread.isAlive()) {
+            List<Entry> next;
+            try {
+                next = applyQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                deleteAppliedSegments();
+                continue;
+            }
+            batch.addAll(next);
+            while (batch.size() < applyBatchSize && (next = applyQueue.poll()) != null) {
+                batch.addAll(next);
+            }
+            while (!tryApply(batch)) {
+                if (!running) {
+                    // останется в журнале и будет применено при следующем старте
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            appliedSeq += batch.size();
+            batch.clear();
+            deleteAppliedSegments();
+        }
+    }
+
+    private boolean tryApply(List<Entry> batch) {
+        try {
+            apply(batch);
+            return true;
+        } catch (DataAccessException ex) {
+            log.error("Не удалось применить {} записей журнала лайков, повторим: {}", batch.size(), ex.getMessage());
+            return false;
+        } catch (RuntimeException ex) {
+            // поток применения не должен останавливаться: иначе подтверждённые лайки так и не попадут в БД
+            log.error("Ошибка при применении {} записей журнала лайков, повторим", batch.size(), ex);
+            return false;
+        }
+    }
+
+    //Применить записи одной транзакцией и обновить структуры в памяти после коммита
+    private void apply(List<Entry> entries) {
+        // для каждой пары важно только последнее действие
+        Map<LikeDto, Boolean> last = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            last.put(new LikeDto(entry.filmId(), entry.userId()), entry.action() == ADD);
+        }
+        List<LikeDto> adds = new ArrayList<>();
+        List<LikeDto> removes = new ArrayList<>();
+        last.forEach((like, add) -> (add ? adds : removes).add(like));
+
+        Changes changes = transactionTemplate.execute(status -> {
+            Changes result = new Changes(likesRepository.insertMissingLikes(adds), likesRepository.deleteLikes(removes));
+            Map<Integer, Integer> deltas = result.rateDeltas();
+            if (!deltas.isEmpty()) {
+                List<Object[]> updates = new ArrayList<>(deltas.size());
+                deltas.forEach((filmId, delta) -> updates.add(new Object[]{delta, filmId}));
+                jdbcTemplate.batchUpdate("UPDATE films SET rate = GREATEST(rate + ?, 0), version = version + 1 WHERE id = ?",
+                        updates);
+            }
+            return result;
+        });
+
+        changes.added().forEach(like -> coLikeModel.addLike(like.getFilmId(), like.getUserId()));
+        changes.removed().forEach(like -> coLikeModel.removeLike(like.getFilmId(), like.getUserId()));
+        changes.rateDeltas().forEach((filmId, delta) -> {
+            popularityIndex.increment(filmId, delta);
+            filmCache.invalidate(filmId);
+        });
+        log.info("Из журнала применено записей: {}, добавлено лайков: {}, удалено: {}", entries.size(),
+                changes.added().size(), changes.removed().size());
+    }
+
+    //Применить записи сегментов, оставшихся с прошлого запуска, и удалить сегменты
+    private void replay() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+        long replayed = 0;
+        List<Entry> batch = new ArrayList<>();
+        for (Path segment : segments) {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+            CRC32C crc = new CRC32C();
+            int skipped = 0;
+            while (records.remaining() >= RECORD_SIZE) {
+                int start = records.position();
+                crc.reset();
+                crc.update(records.array(), start, RECORD_SIZE - 4);
+                Entry entry = new Entry(records.get(), records.getInt(), records.getInt());
+                if (records.getInt() != (int) crc.getValue()
+                        || (entry.action() != ADD && entry.action() != REMOVE)) {
+                    // обрывок записи, не подтверждённой клиенту: ищем следующую целую запись со следующего байта
+                    records.position(start + 1);
+                    skipped++;
+                    continue;
+                }
+                batch.add(entry);
+                if (batch.size() == applyBatchSize) {
+                    apply(batch);
+                    replayed += batch.size();
+                    batch.clear();
+                }
+            }
+            if (skipped > 0 || records.hasRemaining()) {
+                log.warn("В сегменте {} пропущено повреждённых байт: {}", segment, skipped + records.remaining());
+            }
+        }
+        if (!batch.isEmpty()) {
+            apply(batch);
+            replayed += batch.size();
+        }
+        for (Path segment : segments) {
+            Files.delete(segment);
+        }
+        log.info("Из журнала лайков прошлого запуска применено записей: {}", replayed);
+    }
+
+    private void openSegment() throws IOException {
+        segmentPath = directory.resolve(String.format("likes-%d-%020d%s", System.currentTimeMillis(), writtenSeq,
+                SEGMENT_SUFFIX));
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void deleteAppliedSegments() {
+        Segment segment;
+        while ((segment = closedSegments.peekFirst()) != null && segment.lastSeq() <= appliedSeq) {
+            try {
+                Files.deleteIfExists(segment.path());
+            } catch (IOException | RuntimeException ex) {
+                // сегмент остаётся в очереди, удаление повторится на следующем круге потока применения
+                log.error("Не удалось удалить применённый сегмент журнала лайков {}, повторим: {}",
+                        segment.path(), ex.getMessage());
+                return;
+            }
+            closedSegments.pollFirst();
+        }
+    }
+
+    private record Entry(byte action, int filmId, int userId) {
+    }
+
+    private record Segment(Path path, long lastSeq) {
+    }
+
+    //действительно добавленные и удалённые лайки и изменение рейтинга по фильмам.
+    //Нулевое изменение остаётся: список лайков фильма всё равно поменялся
+    private record Changes(List<LikeDto> added, List<LikeDto> removed) {
+        Map<Integer, Integer> rateDeltas() {
+            Map<Integer, Integer> deltas = new HashMap<>();
+            added.forEach(like -> deltas.merge(like.getFilmId(), 1, Integer::sum));
+            removed.forEach(like -> deltas.merge(like.getFilmId(), -1, Integer::sum));
+            return deltas;
+        }
+    }
+}
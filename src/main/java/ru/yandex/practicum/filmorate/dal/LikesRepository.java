@@ -6,17 +6,39 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.memory.IdRegistry;
+import ru.yandex.practicum.filmorate.dto.CursorPageDto;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+import ru.yandex.practicum.filmorate.dto.LikeResultDto;
+import ru.yandex.practicum.filmorate.dto.LikeStatus;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class LikesRepository {
 
+    //наибольшее количество значений в одном условии IN
+    private static final int IN_CHUNK_SIZE = 500;
+    //Лайки одного фильма
+    static final String FILM_LIKES_SQL = "SELECT user_id FROM film_likes WHERE film_id = ?";
+    //Страница лайков фильма. ORDER BY по обеим колонкам первичного ключа: так H2 читает индекс по порядку
+    //и не сортирует лайки
+    static final String LIKES_PAGE_SQL =
+            "SELECT user_id FROM film_likes WHERE film_id = ? AND user_id > ? ORDER BY film_id, user_id LIMIT ?";
+    static final String DELETE_LIKE_SQL = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
+
     private final JdbcTemplate jdbcTemplate;
+    private final IdRegistry idRegistry;
 
     public List<Integer> setLikesToFilm(int filmId, List<Integer> likes) {
         log.info("Вносим список лайков фильмаID {} в таблицу", filmId);
@@ -48,14 +70,38 @@ public class LikesRepository {
         return successfulLikes;
     }
 
-    public void updateLikes(int filmId, List<Integer> likes) {
+    public List<Integer> updateLikes(int filmId, List<Integer> likes) {
         log.info("Обновляем список лайков фильмаID {} в таблицу", filmId);
         // Удаляем старые лайки
         String deleteSql = "DELETE FROM film_likes WHERE film_id = ?";
         jdbcTemplate.update(deleteSql, filmId);
         log.info("Лайки фильма с id:{} успешно удалены", filmId);
 
-        setLikesToFilm(filmId, likes);
+        return setLikesToFilm(filmId, likes);
+    }
+
+    //id всех пользователей, лайкнувших фильм
+    public List<Integer> getLikes(int filmId) {
+        return jdbcTemplate.queryForList(FILM_LIKES_SQL, Integer.class, filmId);
+    }
+
+    //Страница id пользователей, лайкнувших фильм, с id больше afterUserId (keyset-пагинация по первичному ключу)
+    public CursorPageDto<Integer> getLikesPage(int filmId, int afterUserId, int limit) {
+        log.info("Получаем лайки фильма ID {} после пользователя ID {}, размер страницы {}", filmId, afterUserId, limit);
+        try {
+            // Берём на одну запись больше, чтобы узнать, есть ли следующая страница
+            List<Integer> userIds = jdbcTemplate.queryForList(LIKES_PAGE_SQL, Integer.class, filmId, afterUserId,
+                    limit + 1);
+            Integer nextCursor = null;
+            if (userIds.size() > limit) {
+                userIds = userIds.subList(0, limit);
+                nextCursor = userIds.get(limit - 1);
+            }
+            return new CursorPageDto<>(new ArrayList<>(userIds), nextCursor);
+        } catch (DataAccessException ex) {
+            log.error("Во время получения лайков фильма произошла непредвиденная ошибка: {}", ex.getMessage());
+            throw new DataIntegrityViolationException("Не удалось получить лайки фильма");
+        }
     }
 
     public void addLike(int filmId, int userId) {
@@ -83,23 +129,150 @@ public class LikesRepository {
         }
     }
 
+    //Добавить пакет лайков.
+    //Существование фильмов, пользователей и уже поставленных лайков проверяется несколькими запросами на весь пакет,
+    //новые лайки вставляются одним пакетным INSERT. Результат - по одной записи на каждый лайк пакета
+    public List<LikeResultDto> addLikes(List<LikeDto> likes) {
+        log.info("Добавляем пакет из {} лайков", likes.size());
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (LikeDto like : likes) {
+            filmIds.add(like.getFilmId());
+            userIds.add(like.getUserId());
+        }
+        Set<Integer> existingFilms = findExistingIds("SELECT id FROM films WHERE id IN ", filmIds,
+                idRegistry::isKnownFilm, idRegistry::registerFilm);
+        Set<Integer> existingUsers = findExistingIds("SELECT id FROM users WHERE id IN ", userIds,
+                idRegistry::isKnownUser, idRegistry::registerUser);
+        Set<LikeDto> existingLikes = findExistingLikes(likes);
+
+        List<LikeResultDto> results = new ArrayList<>(likes.size());
+        List<Object[]> inserts = new ArrayList<>();
+        for (LikeDto like : likes) {
+            LikeStatus status;
+            if (!existingFilms.contains(like.getFilmId())) {
+                status = LikeStatus.FILM_NOT_FOUND;
+            } else if (!existingUsers.contains(like.getUserId())) {
+                status = LikeStatus.USER_NOT_FOUND;
+            } else if (!existingLikes.add(like)) {
+                // лайк уже есть в БД или встретился в пакете раньше
+                status = LikeStatus.DUPLICATE;
+            } else {
+                status = LikeStatus.ADDED;
+                inserts.add(new Object[]{like.getFilmId(), like.getUserId()});
+            }
+            results.add(new LikeResultDto(like.getFilmId(), like.getUserId(), status));
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", inserts);
+        }
+        log.info("Из пакета добавлено лайков: {}", inserts.size());
+        return results;
+    }
+
+    //Добавить лайки, которых ещё нет в БД, одним пакетным INSERT. Результат - действительно добавленные лайки.
+    //Лайки удалённых к этому времени фильмов и пользователей пропускаются
+    public List<LikeDto> insertMissingLikes(Collection<LikeDto> likes) {
+        List<LikeDto> candidates = new ArrayList<>(likes);
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (LikeDto like : candidates) {
+            filmIds.add(like.getFilmId());
+            userIds.add(like.getUserId());
+        }
+        Set<Integer> existingFilms = findExistingIds("SELECT id FROM films WHERE id IN ", filmIds,
+                idRegistry::isKnownFilm, idRegistry::registerFilm);
+        Set<Integer> existingUsers = findExistingIds("SELECT id FROM users WHERE id IN ", userIds,
+                idRegistry::isKnownUser, idRegistry::registerUser);
+        Set<LikeDto> existing = findExistingLikes(candidates);
+        List<LikeDto> added = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (LikeDto like : candidates) {
+            if (existingFilms.contains(like.getFilmId()) && existingUsers.contains(like.getUserId())
+                    && existing.add(like)) {
+                added.add(like);
+                inserts.add(new Object[]{like.getFilmId(), like.getUserId()});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", inserts);
+        }
+        return added;
+    }
+
+    //Удалить лайки одним пакетным DELETE. Результат - лайки, которые действительно были в БД
+    public List<LikeDto> deleteLikes(Collection<LikeDto> likes) {
+        List<LikeDto> candidates = new ArrayList<>(likes);
+        List<Object[]> deletes = new ArrayList<>(candidates.size());
+        for (LikeDto like : candidates) {
+            deletes.add(new Object[]{like.getFilmId(), like.getUserId()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(DELETE_LIKE_SQL, deletes);
+        List<LikeDto> removed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                removed.add(candidates.get(i));
+            }
+        }
+        return removed;
+    }
+
+    //Существующие id из ids: известные реестру id берутся из него, остальные проверяются запросами IN
+    private Set<Integer> findExistingIds(String sqlPrefix, Collection<Integer> ids,
+                                         IntPredicate known, IntConsumer register) {
+        Set<Integer> found = new HashSet<>();
+        List<Integer> unknown = new ArrayList<>();
+        for (Integer id : ids) {
+            if (known.test(id)) {
+                found.add(id);
+            } else {
+                unknown.add(id);
+            }
+        }
+        for (int from = 0; from < unknown.size(); from += IN_CHUNK_SIZE) {
+            List<Integer> chunk = unknown.subList(from, Math.min(from + IN_CHUNK_SIZE, unknown.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            for (Integer id : jdbcTemplate.queryForList(sqlPrefix + "(" + placeholders + ")", Integer.class, chunk.toArray())) {
+                register.accept(id);
+                found.add(id);
+            }
+        }
+        return found;
+    }
+
+    private Set<LikeDto> findExistingLikes(List<LikeDto> likes) {
+        Set<LikeDto> found = new HashSet<>();
+        for (int from = 0; from < likes.size(); from += IN_CHUNK_SIZE) {
+            List<LikeDto> chunk = likes.subList(from, Math.min(from + IN_CHUNK_SIZE, likes.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "(?, ?)"));
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = chunk.get(i).getFilmId();
+                args[2 * i + 1] = chunk.get(i).getUserId();
+            }
+            jdbcTemplate.query("SELECT film_id, user_id FROM film_likes WHERE (film_id, user_id) IN (" + placeholders + ")",
+                    rs -> {
+                        found.add(new LikeDto(rs.getInt("film_id"), rs.getInt("user_id")));
+                    }, args);
+        }
+        return found;
+    }
+
     private boolean filmExists(int filmId) {
-        String sql = "SELECT COUNT(*) FROM films WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, filmId);
-        return count != null && count > 0;
+        return idRegistry.filmExists(filmId);
     }
 
     private boolean isUserExists(int userId) {
-        String sql = "SELECT COUNT(*) FROM users WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, userId);
-        return count != null && count > 0;
+        return idRegistry.userExists(userId);
     }
 
-    public void removeLike(int filmId, int userId) {
-        String deleteSql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
+    //Удалить лайк. Возвращает количество удаленных строк: 0, если лайка не было
+    public int removeLike(int filmId, int userId) {
         try {
-            jdbcTemplate.update(deleteSql, filmId, userId);
+            int removed = jdbcTemplate.update(DELETE_LIKE_SQL, filmId, userId);
             log.info("Пользователя с id: {} успешно удален к фильму {}", userId, filmId);
+            return removed;
         } catch (DataAccessException ex) {
             log.error("Произошла ошибка. Возможно не найден пользователь {}  или фильм {}", userId, filmId);
             throw new NotFoundException("Произошла ошибка. Возможно не найден пользователь " + userId + " или фильм " + filmId);
@@ -9,6 +9,9 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dal.memory.FriendSuggestions;
+import ru.yandex.practicum.filmorate.dal.memory.IdRegistry;
+import ru.yandex.practicum.filmorate.dto.FriendSuggestionDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mappers.UserDtoMapper;
@@ -17,17 +20,23 @@ import ru.yandex.practicum.filmorate.model.User;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class UserRepository {
 
+    //Максимальное количество параметров в одном запросе IN
+    private static final int IN_CHUNK_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
     private final FriendshipRepository friendshipRepository;
+    private final IdRegistry idRegistry;
 
     //Добавить
     public void addUser(User user) {
@@ -46,6 +55,7 @@ public class UserRepository {
 
             int userId = keyHolder.getKey().intValue();
             user.setId(userId);
+            idRegistry.registerUser(userId);
             log.info("Выполнено добавление нового пользователя в БД. ID пользователя: {}", userId);
             log.info(user.toString());
             // Добавляем друзей
@@ -65,7 +75,8 @@ public class UserRepository {
         checkUserExists(user.getId());
 
         // SQL-запрос для обновления данных пользователя
-        String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
+        String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ?, version = version + 1 " +
+                "WHERE id = ?";
         try {
             jdbcTemplate.update(sql,
                     user.getEmail(),
@@ -87,9 +98,7 @@ public class UserRepository {
 
     // Метод для проверки существования пользователя в БД
     public void checkUserExists(int userId) {
-        String sql = "SELECT COUNT(*) FROM users WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, userId);
-        if (count == null || count == 0) {
+        if (!idRegistry.userExists(userId)) {
             log.error("Пользователь с ID {} не найден", userId);
             throw new NotFoundException("Пользователь с ID " + userId + " не найден");
         }
@@ -98,7 +107,7 @@ public class UserRepository {
     //Получить (1)
     public UserDto getUser(int id) {
         log.info("Пытаемся получить данные пользователя ID {}", id);
-        String sql = "SELECT id, email, login, name, birthday FROM users WHERE id = ?";
+        String sql = "SELECT id, email, login, name, birthday, version FROM users WHERE id = ?";
         try {
             UserDto user = jdbcTemplate.queryForObject(sql, new UserDtoMapper(), id);
             return user;
@@ -114,7 +123,7 @@ public class UserRepository {
     //Получить всех
     public List<UserDto> getUsers() {
         log.info("Пытаемся получить данные всех пользователей");
-        String sql = "SELECT id, email, login, name, birthday FROM users";
+        String sql = "SELECT id, email, login, name, birthday, version FROM users";
         try {
             // Получаем всех пользователей
             List<UserDto> users = jdbcTemplate.query(sql, new UserDtoMapper());
@@ -126,6 +135,44 @@ public class UserRepository {
         }
     }
 
+    //Получить пользователей по списку id в порядке следования id в списке.
+    //Пользователи читаются запросами IN порциями по IN_CHUNK_SIZE id,
+    //отсутствующие в БД id и повторы пропускаются
+    public List<UserDto> getUsersByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        try {
+            Map<Integer, UserDto> usersById = new HashMap<>(ids.length * 2);
+            UserDtoMapper mapper = new UserDtoMapper();
+            for (int from = 0; from < ids.length; from += IN_CHUNK_SIZE) {
+                int to = Math.min(from + IN_CHUNK_SIZE, ids.length);
+                Object[] args = new Object[to - from];
+                for (int i = from; i < to; i++) {
+                    args[i - from] = ids[i];
+                }
+                String placeholders = String.join(",", Collections.nCopies(args.length, "?"));
+                for (UserDto user : jdbcTemplate.query("SELECT id, email, login, name, birthday, version FROM users " +
+                        "WHERE id IN (" + placeholders + ")", mapper, args)) {
+                    usersById.put(user.getId(), user);
+                }
+            }
+
+            List<UserDto> result = new ArrayList<>(usersById.size());
+            for (int id : ids) {
+                // remove, чтобы повторяющийся id попал в результат один раз
+                UserDto user = usersById.remove(id);
+                if (user != null) {
+                    result.add(user);
+                }
+            }
+            return result;
+        } catch (DataAccessException ex) {
+            log.error("Во время получения пользователей произошла непредвиденная ошибка: {}", ex.getMessage());
+            throw new DataIntegrityViolationException("Не удалось получить пользователей");
+        }
+    }
+
     //Отправить запрос в друзья
     public void addFriend(int firstId, int secondId) {
         log.info("Пытаемся добавить пользователя {} в друзья к пользователю {}", secondId, firstId);
@@ -179,12 +226,7 @@ public class UserRepository {
     public List<UserDto> getFriends(int id) {
         log.info("Получаем список всех друзей пользователя {}", id);
         checkUserExists(id);
-        List<UserDto> friendsList = new ArrayList<>();
-        Set<Integer> friends = friendshipRepository.getFriendsForUser(id);
-        for (Integer userId : friends) {
-            friendsList.add(getUser(userId));
-        }
-        return friendsList;
+        return getUsersByIds(friendshipRepository.getFriendsForUser(id));
     }
 
     //Получить общих друзей
@@ -194,11 +236,22 @@ public class UserRepository {
         checkUserExists(firstId);
         // Проверяем, существует ли пользователь в БД
         checkUserExists(secondId);
-        List<UserDto> friendsList = new ArrayList<>();
-        Set<Integer> friends = friendshipRepository.getCommonFriends(firstId, secondId);
-        for (Integer userId : friends) {
-            friendsList.add(getUser(userId));
+        return getUsersByIds(friendshipRepository.getCommonFriends(firstId, secondId));
+    }
+
+    //Получить возможных друзей по количеству общих друзей
+    public List<FriendSuggestionDto> getFriendSuggestions(int id, int limit) {
+        log.info("Подбираем возможных друзей для пользователя {}", id);
+        checkUserExists(id);
+        FriendSuggestions.Result suggestions = friendshipRepository.getFriendSuggestions(id, limit);
+        Map<Integer, Integer> mutualFriends = new HashMap<>();
+        for (int i = 0; i < suggestions.ids().length; i++) {
+            mutualFriends.put(suggestions.ids()[i], suggestions.mutualFriends()[i]);
+        }
+        List<FriendSuggestionDto> result = new ArrayList<>(suggestions.ids().length);
+        for (UserDto user : getUsersByIds(suggestions.ids())) {
+            result.add(new FriendSuggestionDto(user, mutualFriends.get(user.getId())));
         }
-        return friendsList;
+        return result;
     }
 }
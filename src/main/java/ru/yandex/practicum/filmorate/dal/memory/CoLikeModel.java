@@ -0,0 +1,354 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+import ru.yandex.practicum.filmorate.util.IntList;
+import ru.yandex.practicum.filmorate.util.LongTopHeap;
+import ru.yandex.practicum.filmorate.util.SortedInts;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+//Модель совместных лайков «кто лайкнул X, лайкнул и Y».
+//Для каждого фильма хранится разреженная строка IntIntMap: id другого фильма -> количество пользователей,
+//лайкнувших оба фильма. Лайки хранятся отсортированными массивами id фильмов по пользователю,
+//сами массивы лежат в массиве, индексированном id пользователя (id выдаются БД подряд).
+//Списков пользователей по фильму модель не держит: у популярного фильма их миллионы, и копирование такого
+//массива на каждом лайке под блокировкой записи останавливало бы рекомендации. Лайк копирует только
+//список фильмов пользователя, который обычно не длиннее нескольких сотен.
+//Модель строится из film_likes при старте параллельно по фильмам и поддерживается FilmRepository
+//при каждом лайке. Пользователи, лайкнувшие больше max-user-likes фильмов, в совместные лайки не входят:
+//они дают квадратичное число пар и почти не несут сигнала.
+//Строка хранит только max-row-size фильмов с наибольшим числом совместных лайков: при построении лишнее
+//отбрасывается сразу, при изменениях строка растёт до двойного размера и снова урезается. Счётчики
+//отброшенных фильмов теряются, поэтому после урезания модель приближённая, но её память ограничена
+//числом фильмов, умноженным на max-row-size. При enabled=false модель не строится и не обновляется,
+//а рекомендации пустые
+@Slf4j
+@Component
+public class CoLikeModel {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int maxUserLikes;
+    private final int maxRowSize;
+
+    //чтение рекомендаций идёт под блокировкой чтения, изменения модели - под блокировкой записи
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[][] filmsByUser = new int[1][];
+    private IntIntMap[] coLikes = new IntIntMap[1];
+
+    public CoLikeModel(JdbcTemplate jdbcTemplate,
+                       @Value("${filmorate.recommendations.enabled:true}") boolean enabled,
+                       @Value("${filmorate.recommendations.max-user-likes:500}") int maxUserLikes,
+                       @Value("${filmorate.recommendations.max-row-size:100}") int maxRowSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxUserLikes = maxUserLikes;
+        this.maxRowSize = Math.max(maxRowSize, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //Построить модель заново по таблице film_likes.
+    //Строки совместных лайков разных фильмов независимы и считаются параллельно
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            log.info("Рекомендации по совместным лайкам отключены, модель не строится");
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            IntList filmIds = new IntList(1024);
+            IntList userIds = new IntList(1024);
+            jdbcTemplate.query("SELECT film_id, user_id FROM film_likes", rs -> {
+                filmIds.add(rs.getInt("film_id"));
+                userIds.add(rs.getInt("user_id"));
+            });
+            int[][] newUsersByFilm = group(filmIds, userIds);
+            int[][] newFilmsByUser = group(userIds, filmIds);
+            IntIntMap[] newCoLikes = new IntIntMap[newUsersByFilm.length];
+            IntStream.range(1, newUsersByFilm.length).parallel()
+                    .forEach(filmId -> newCoLikes[filmId] = buildRow(filmId, newUsersByFilm, newFilmsByUser));
+
+            filmsByUser = newFilmsByUser;
+            coLikes = newCoLikes;
+            log.info("Модель совместных лайков построена: лайков {}, фильмов {}, за {} мс",
+                    filmIds.size(), newUsersByFilm.length - 1, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Пользователь поставил лайк фильму (повторный лайк ничего не меняет)
+    public void addLike(int filmId, int userId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            applyAdd(filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Пользователь убрал лайк фильма (отсутствующий лайк ничего не меняет)
+    public void removeLike(int filmId, int userId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            applyRemove(filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Список лайков фильма заменён целиком: oldUserIds - пользователи, лайкнувшие фильм до замены
+    public void replaceFilmLikes(int filmId, Collection<Integer> oldUserIds, Collection<Integer> userIds) {
+        if (!enabled) {
+            return;
+        }
+        int[] newUsers = userIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        lock.writeLock().lock();
+        try {
+            for (int userId : oldUserIds) {
+                if (!SortedInts.contains(newUsers, userId)) {
+                    applyRemove(filmId, userId);
+                }
+            }
+            for (int userId : newUsers) {
+                applyAdd(filmId, userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Фильмы, которые чаще всего лайкали вместе с данным: по убыванию числа совместных лайков
+    public int[] similarFilms(int filmId, int limit) {
+        lock.readLock().lock();
+        try {
+            IntIntMap row = filmId < coLikes.length ? coLikes[filmId] : null;
+            if (row == null) {
+                return SortedInts.EMPTY;
+            }
+            LongTopHeap top = new LongTopHeap(limit);
+            row.forEach((otherId, count) -> top.offer(key(count, otherId)));
+            return ids(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Рекомендации пользователю: сумма совместных лайков по всем его лайкам,
+    //без фильмов, которые он уже лайкнул
+    public int[] recommendFilms(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] liked = userId < filmsByUser.length && filmsByUser[userId] != null
+                    ? filmsByUser[userId] : SortedInts.EMPTY;
+            // оценки копятся в таблице размером с затронутые строки, а не с весь каталог
+            int touched = 0;
+            for (int filmId : liked) {
+                IntIntMap row = coLikes[filmId];
+                touched += row == null ? 0 : row.size();
+            }
+            IntIntMap scores = new IntIntMap(touched);
+            for (int filmId : liked) {
+                IntIntMap row = coLikes[filmId];
+                if (row != null) {
+                    row.forEach(scores::add);
+                }
+            }
+            LongTopHeap top = new LongTopHeap(limit);
+            scores.forEach((otherId, score) -> {
+                if (!SortedInts.contains(liked, otherId)) {
+                    top.offer(key(score, otherId));
+                }
+            });
+            return ids(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyAdd(int filmId, int userId) {
+        ensureCapacity(filmId, userId);
+        int[] films = orEmpty(filmsByUser[userId]);
+        int[] newFilms = SortedInts.insert(films, filmId);
+        if (newFilms == films) {
+            return;
+        }
+        filmsByUser[userId] = newFilms;
+
+        if (newFilms.length <= maxUserLikes) {
+            for (int otherId : films) {
+                addPair(filmId, otherId, 1);
+            }
+        } else if (films.length == maxUserLikes) {
+            // пользователь только что перешёл порог: убираем все его пары
+            addAllPairs(films, -1);
+        }
+    }
+
+    private void applyRemove(int filmId, int userId) {
+        if (userId >= filmsByUser.length || filmsByUser[userId] == null) {
+            return;
+        }
+        int[] films = filmsByUser[userId];
+        int[] newFilms = SortedInts.remove(films, filmId);
+        if (newFilms == films) {
+            return;
+        }
+        filmsByUser[userId] = newFilms;
+
+        if (films.length <= maxUserLikes) {
+            for (int otherId : newFilms) {
+                addPair(filmId, otherId, -1);
+            }
+        } else if (newFilms.length == maxUserLikes) {
+            // пользователь вернулся под порог: его пары снова учитываются
+            addAllPairs(newFilms, 1);
+        }
+    }
+
+    private void addAllPairs(int[] films, int delta) {
+        for (int i = 0; i < films.length; i++) {
+            for (int j = i + 1; j < films.length; j++) {
+                addPair(films[i], films[j], delta);
+            }
+        }
+    }
+
+    private void addPair(int firstId, int secondId, int delta) {
+        addToRow(firstId, secondId, delta);
+        addToRow(secondId, firstId, delta);
+    }
+
+    private void addToRow(int filmId, int otherId, int delta) {
+        IntIntMap row = coLikes[filmId];
+        if (delta < 0) {
+            // пара могла быть отброшена при урезании строки: уменьшать нечего
+            if (row != null && row.get(otherId) > 0) {
+                row.add(otherId, delta);
+            }
+            return;
+        }
+        if (row == null) {
+            row = new IntIntMap();
+            coLikes[filmId] = row;
+        }
+        row.add(otherId, delta);
+        if (row.size() > 2 * maxRowSize) {
+            coLikes[filmId] = truncate(row);
+        }
+    }
+
+    //Строка только из maxRowSize фильмов с наибольшим числом совместных лайков
+    private IntIntMap truncate(IntIntMap row) {
+        LongTopHeap top = new LongTopHeap(maxRowSize);
+        row.forEach((otherId, count) -> {
+            if (count > 0) {
+                top.offer(key(count, otherId));
+            }
+        });
+        long[] best = top.toSortedDescending();
+        IntIntMap result = new IntIntMap(best.length);
+        for (long key : best) {
+            result.add(Integer.MAX_VALUE - (int) key, (int) (key >>> 32));
+        }
+        return result;
+    }
+
+    private void ensureCapacity(int filmId, int userId) {
+        if (filmId >= coLikes.length) {
+            coLikes = Arrays.copyOf(coLikes, Math.max(filmId + 1, coLikes.length * 2));
+        }
+        if (userId >= filmsByUser.length) {
+            filmsByUser = Arrays.copyOf(filmsByUser, Math.max(userId + 1, filmsByUser.length * 2));
+        }
+    }
+
+    private IntIntMap buildRow(int filmId, int[][] usersByFilm, int[][] filmsByUser) {
+        int[] users = usersByFilm[filmId];
+        if (users == null) {
+            return null;
+        }
+        IntIntMap row = new IntIntMap();
+        for (int userId : users) {
+            int[] films = filmsByUser[userId];
+            if (films.length > maxUserLikes) {
+                continue;
+            }
+            for (int otherId : films) {
+                if (otherId != filmId) {
+                    row.add(otherId, 1);
+                }
+            }
+        }
+        if (row.size() == 0) {
+            return null;
+        }
+        return row.size() > maxRowSize ? truncate(row) : row;
+    }
+
+    //Сгруппировать пары (key, value) в отсортированные массивы value по key
+    private static int[][] group(IntList keys, IntList values) {
+        int maxKey = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            maxKey = Math.max(maxKey, keys.get(i));
+        }
+        int[] counts = new int[maxKey + 1];
+        for (int i = 0; i < keys.size(); i++) {
+            counts[keys.get(i)]++;
+        }
+        int[][] groups = new int[maxKey + 1][];
+        for (int key = 1; key <= maxKey; key++) {
+            if (counts[key] > 0) {
+                groups[key] = new int[counts[key]];
+            }
+        }
+        int[] filled = new int[maxKey + 1];
+        for (int i = 0; i < keys.size(); i++) {
+            int key = keys.get(i);
+            groups[key][filled[key]++] = values.get(i);
+        }
+        for (int[] group : groups) {
+            if (group != null) {
+                Arrays.sort(group);
+            }
+        }
+        return groups;
+    }
+
+    private static int[] orEmpty(int[] values) {
+        return values == null ? SortedInts.EMPTY : values;
+    }
+
+    //ключ: больше оценка - больше ключ, при равной оценке больше ключ у меньшего id
+    private static long key(int score, int filmId) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - filmId);
+    }
+
+    private static int[] ids(LongTopHeap top) {
+        long[] best = top.toSortedDescending();
+        int[] ids = new int[best.length];
+        for (int i = 0; i < best.length; i++) {
+            ids[i] = Integer.MAX_VALUE - (int) best[i];
+        }
+        return ids;
+    }
+}
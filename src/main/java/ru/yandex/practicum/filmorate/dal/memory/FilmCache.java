@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+//Кеш собранных FilmDto по id фильма со сквозным чтением.
+//Размер ограничен max-size (вытесняются давно не читавшиеся фильмы), запись живёт не дольше ttl.
+//FilmRepository сбрасывает запись фильма при каждом его изменении.
+//Возвращаемые FilmDto общие для всех вызовов и не должны изменяться
+@Slf4j
+@Component
+public class FilmCache {
+
+    //количество полос счётчиков сброса
+    private static final int STRIPES = 64;
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Integer, Entry> entries;
+
+    //счётчики сбросов по полосам id: загрузка кладёт результат в кеш,
+    //только если за время загрузки запись этого фильма не сбрасывалась
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+
+    public FilmCache(@Value("${filmorate.films.cache.max-size:1000}") int maxSize,
+                     @Value("${filmorate.films.cache.ttl:60s}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > FilmCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        log.info("Кеш фильмов: не больше {} записей, время жизни {}", maxSize, ttl);
+    }
+
+    //Фильм из кеша или, если его там нет либо запись устарела, из loader с сохранением в кеш
+    public FilmDto get(int filmId, IntFunction<FilmDto> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(filmId);
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(filmId);
+        }
+        long now = System.nanoTime();
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            return entry.film();
+        }
+        misses.increment();
+
+        long invalidationsBefore = invalidations.get(stripe(filmId));
+        FilmDto film = loader.apply(filmId);
+        synchronized (entries) {
+            if (invalidations.get(stripe(filmId)) == invalidationsBefore) {
+                entries.put(filmId, new Entry(film, now));
+            }
+        }
+        return film;
+    }
+
+    //Фильм из кеша без загрузки или null, если его там нет либо запись устарела
+    public FilmDto peek(int filmId) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(filmId);
+        }
+        return entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos ? entry.film() : null;
+    }
+
+    //Сбросить запись фильма после его изменения
+    public void invalidate(int filmId) {
+        synchronized (entries) {
+            invalidations.incrementAndGet(stripe(filmId));
+            if (entries.remove(filmId) != null) {
+                invalidated.increment();
+            }
+        }
+    }
+
+    //Сбросить все записи
+    public void clear() {
+        synchronized (entries) {
+            for (int i = 0; i < STRIPES; i++) {
+                invalidations.incrementAndGet(i);
+            }
+            invalidated.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(size, hits.sum(), misses.sum(), evictions.sum(), invalidated.sum());
+    }
+
+    private static int stripe(int filmId) {
+        return filmId & (STRIPES - 1);
+    }
+
+    //статистика кеша: текущий размер, попадания, промахи, вытеснения по размеру и сбросы после изменений
+    public record Stats(int size, long hits, long misses, long evictions, long invalidations) {
+    }
+
+    private record Entry(FilmDto film, long loadedAt) {
+    }
+}
@@ -0,0 +1,330 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.CompressedInts;
+import ru.yandex.practicum.filmorate.util.IntList;
+import ru.yandex.practicum.filmorate.util.LongTopHeap;
+import ru.yandex.practicum.filmorate.util.SortedInts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Обратный индекс названий и описаний фильмов в памяти для поиска GET /films/search.
+//Текст разбивается на слова (термы) в нижнем регистре. Для каждого терма хранятся id фильмов,
+//у которых он есть в названии и в описании, а для каждой триграммы (трёх символов подряд) - id термов,
+//в которые она входит. Все списки id хранятся сжатыми в CompressedInts.
+//Слово запроса из трёх и более символов находит термы, содержащие его как подстроку: кандидаты получаются
+//пересечением списков его триграмм и проверяются по самому терму. Более короткие слова ищутся целиком.
+//Индекс строится из БД при старте и поддерживается FilmRepository при добавлении и обновлении фильма.
+//Новый фильм получает id больше всех прежних и дописывается в конец списков своих термов. Обновление старого
+//фильма вставляет и удаляет его id в середине списков, а это пересборка каждого затронутого списка целиком
+//под блокировкой записи: для терма, который есть у большинства из 1 млн фильмов, - единицы миллисекунд,
+//на которые останавливается поиск. Поэтому обновление трогает только списки термов, которые появились
+//в тексте фильма или пропали из него, а не все термы фильма
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+
+    private static final int GRAM = 3;
+    //слова запроса сверх этого количества не учитываются
+    private static final int MAX_QUERY_TERMS = 8;
+    //вес совпадения слова запроса в названии и в описании
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    //рейтинг в ключе ранжирования занимает 24 бита, больший рейтинг считается равным наибольшему
+    private static final int MAX_RANKED_RATE = (1 << 24) - 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularityIndex popularityIndex;
+
+    //поиск идёт под блокировкой чтения, изменения индекса - под блокировкой записи
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Integer> termIds = new HashMap<>();
+    private List<String> terms = new ArrayList<>();
+    //id фильмов по id терма (null, если терм не встречался в этом поле)
+    private List<CompressedInts> nameFilms = new ArrayList<>();
+    private List<CompressedInts> descriptionFilms = new ArrayList<>();
+    //id термов по триграмме
+    private Map<String, CompressedInts> gramTerms = new HashMap<>();
+    //сжатые id термов названия и описания по id фильма, нужны чтобы убрать фильм из индекса при обновлении
+    private byte[][] nameTermsByFilm = new byte[1][];
+    private byte[][] descriptionTermsByFilm = new byte[1][];
+
+    //Построить индекс заново по таблице films.
+    //Фильмы читаются по возрастанию id, поэтому id дописываются в конец списков без пересборки
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            termIds = new HashMap<>();
+            terms = new ArrayList<>();
+            nameFilms = new ArrayList<>();
+            descriptionFilms = new ArrayList<>();
+            gramTerms = new HashMap<>();
+            nameTermsByFilm = new byte[1][];
+            descriptionTermsByFilm = new byte[1][];
+            int[] films = new int[1];
+            jdbcTemplate.query("SELECT id, name, description FROM films ORDER BY id", rs -> {
+                addFilm(rs.getInt("id"), rs.getString("name"), rs.getString("description"));
+                films[0]++;
+            });
+            long bytes = trim(nameFilms) + trim(descriptionFilms) + trim(gramTerms.values());
+            log.info("Поисковый индекс фильмов построен: фильмов {}, термов {}, триграмм {}, "
+                            + "списков id {} КБ, за {} мс", films[0], terms.size(), gramTerms.size(), bytes / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Проиндексировать фильм заново с новыми названием и описанием
+    public void put(int filmId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            addFilm(filmId, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //id до limit фильмов, в названии или описании которых есть все слова запроса.
+    //Фильмы упорядочены по весу совпадений (слово в названии весит больше, чем в описании),
+    //при равном весе - по убыванию рейтинга, затем по возрастанию id
+    public List<Integer> search(String query, int limit) {
+        List<String> words = tokens(query);
+        if (words.size() > MAX_QUERY_TERMS) {
+            words = words.subList(0, MAX_QUERY_TERMS);
+        }
+        if (words.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        int[][] nameHits = new int[words.size()][];
+        int[][] descriptionHits = new int[words.size()][];
+        int[] candidates = null;
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < words.size(); i++) {
+                int[] matched = matchTerms(words.get(i));
+                nameHits[i] = films(nameFilms, matched);
+                descriptionHits[i] = films(descriptionFilms, matched);
+                int[] hits = SortedInts.union(nameHits[i], descriptionHits[i]);
+                candidates = candidates == null ? hits : SortedInts.intersect(candidates, hits);
+                if (candidates.length == 0) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // кандидаты и списки совпадений отсортированы, поэтому вес считается слиянием без двоичного поиска
+        int[] scores = new int[candidates.length];
+        for (int i = 0; i < words.size(); i++) {
+            addScores(scores, candidates, nameHits[i], NAME_WEIGHT);
+            addScores(scores, candidates, descriptionHits[i], DESCRIPTION_WEIGHT);
+        }
+        LongTopHeap top = new LongTopHeap(Math.min(limit, candidates.length));
+        for (int i = 0; i < candidates.length; i++) {
+            top.offer(key(scores[i], popularityIndex.getRate(candidates[i]), candidates[i]));
+        }
+        List<Integer> result = new ArrayList<>(top.size());
+        for (long key : top.toSortedDescending()) {
+            result.add(Integer.MAX_VALUE - (int) (key & Integer.MAX_VALUE));
+        }
+        return result;
+    }
+
+    //Слова текста в нижнем регистре без повторов, в порядке первого появления.
+    //Словом считается последовательность букв и цифр, «ё» приводится к «е»
+    static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                result.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    //id термов, в которые входит слово запроса
+    private int[] matchTerms(String word) {
+        if (word.length() < GRAM) {
+            Integer termId = termIds.get(word);
+            return termId == null ? SortedInts.EMPTY : new int[]{termId};
+        }
+        List<CompressedInts> postings = new ArrayList<>();
+        for (String gram : grams(word)) {
+            CompressedInts gramPostings = gramTerms.get(gram);
+            if (gramPostings == null) {
+                return SortedInts.EMPTY;
+            }
+            postings.add(gramPostings);
+        }
+        // пересечение начинается с самого короткого списка
+        postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        int[] candidates = postings.get(0).toArray();
+        for (int i = 1; i < postings.size() && candidates.length > 0; i++) {
+            candidates = SortedInts.intersect(candidates, postings.get(i).toArray());
+        }
+        IntList matched = new IntList(candidates.length);
+        for (int termId : candidates) {
+            // триграммы могут стоять в терме не подряд, поэтому терм проверяется целиком
+            if (terms.get(termId).contains(word)) {
+                matched.add(termId);
+            }
+        }
+        return matched.toArray();
+    }
+
+    //Добавить weight к весу кандидатов, которые есть в hits
+    private static void addScores(int[] scores, int[] candidates, int[] hits, int weight) {
+        int j = 0;
+        for (int i = 0; i < candidates.length && j < hits.length; i++) {
+            while (j < hits.length && hits[j] < candidates[i]) {
+                j++;
+            }
+            if (j < hits.length && hits[j] == candidates[i]) {
+                scores[i] += weight;
+            }
+        }
+    }
+
+    //Объединение списков фильмов термов termIds
+    private static int[] films(List<CompressedInts> filmsByTerm, int[] termIds) {
+        IntList all = new IntList();
+        int lists = 0;
+        int[] single = SortedInts.EMPTY;
+        for (int termId : termIds) {
+            CompressedInts postings = filmsByTerm.get(termId);
+            if (postings == null || postings.isEmpty()) {
+                continue;
+            }
+            single = postings.toArray();
+            lists++;
+            for (int filmId : single) {
+                all.add(filmId);
+            }
+        }
+        if (lists < 2) {
+            return single;
+        }
+        int[] result = all.toArray();
+        Arrays.sort(result);
+        int size = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (size == 0 || result[i] != result[size - 1]) {
+                result[size++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private void addFilm(int filmId, String name, String description) {
+        ensureCapacity(filmId);
+        nameTermsByFilm[filmId] = updatePostings(nameFilms, filmId, nameTermsByFilm[filmId], name);
+        descriptionTermsByFilm[filmId] = updatePostings(descriptionFilms, filmId,
+                descriptionTermsByFilm[filmId], description);
+    }
+
+    //Привести списки фильмов к новому тексту поля: фильм убирается из списков термов, которых в тексте
+    //больше нет, и добавляется в списки новых термов. Возвращает сжатые id термов нового текста.
+    // термы, оставшиеся без фильмов, остаются в словаре: поиск по ним просто ничего не находит
+    private byte[] updatePostings(List<CompressedInts> filmsByTerm, int filmId, byte[] oldTermIds, String text) {
+        List<String> words = tokens(text);
+        int[] ids = new int[words.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = termId(words.get(i));
+        }
+        Arrays.sort(ids);
+        int[] oldIds = oldTermIds == null ? SortedInts.EMPTY : CompressedInts.decode(oldTermIds);
+        for (int termId : SortedInts.difference(oldIds, ids)) {
+            CompressedInts postings = filmsByTerm.get(termId);
+            if (postings != null) {
+                postings.remove(filmId);
+            }
+        }
+        for (int termId : SortedInts.difference(ids, oldIds)) {
+            CompressedInts postings = filmsByTerm.get(termId);
+            if (postings == null) {
+                postings = new CompressedInts();
+                filmsByTerm.set(termId, postings);
+            }
+            postings.add(filmId);
+        }
+        return CompressedInts.encode(ids);
+    }
+
+    private int termId(String term) {
+        Integer termId = termIds.get(term);
+        if (termId != null) {
+            return termId;
+        }
+        int newId = terms.size();
+        termIds.put(term, newId);
+        terms.add(term);
+        nameFilms.add(null);
+        descriptionFilms.add(null);
+        // id новых термов растут, поэтому дописываются в конец списков триграмм
+        for (String gram : grams(term)) {
+            gramTerms.computeIfAbsent(gram, key -> new CompressedInts()).add(newId);
+        }
+        return newId;
+    }
+
+    //Различные триграммы слова
+    private static Set<String> grams(String word) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            result.add(word.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private void ensureCapacity(int filmId) {
+        if (filmId >= nameTermsByFilm.length) {
+            int capacity = Math.max(filmId + 1, nameTermsByFilm.length * 2);
+            nameTermsByFilm = Arrays.copyOf(nameTermsByFilm, capacity);
+            descriptionTermsByFilm = Arrays.copyOf(descriptionTermsByFilm, capacity);
+        }
+    }
+
+    //Освободить запас в списках id после построения, возвращает их размер в байтах
+    private static long trim(Iterable<CompressedInts> postings) {
+        long bytes = 0;
+        for (CompressedInts list : postings) {
+            if (list != null) {
+                list.trim();
+                bytes += list.byteSize();
+            }
+        }
+        return bytes;
+    }
+
+    //Ключ ранжирования: по убыванию ключа идут вес совпадений, рейтинг и id по возрастанию
+    private static long key(int score, int rate, int filmId) {
+        return ((long) score << 55) | ((long) Math.min(rate, MAX_RANKED_RATE) << 31)
+                | (Integer.MAX_VALUE - filmId);
+    }
+}
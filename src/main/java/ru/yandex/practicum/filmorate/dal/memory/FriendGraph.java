@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntList;
+import ru.yandex.practicum.filmorate.util.SortedInts;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Граф дружбы в памяти: для каждого пользователя отсортированные массивы id соседей.
+//Строится из user_friends при старте и поддерживается FriendshipRepository при каждом изменении,
+//поэтому списки друзей и общих друзей считаются слиянием массивов без запросов к БД.
+//Семантика та же, что у таблицы: запись user_id -> friend_id делает friend_id другом user_id,
+//а обратно дружба действует только после подтверждения (friendship_type_id = 2)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendGraph {
+
+    private static final int CONFIRMED = 2;
+    private static final Node EMPTY_NODE = new Node(SortedInts.EMPTY, SortedInts.EMPTY, SortedInts.EMPTY);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //Узлы неизменяемы: изменение заменяет узел целиком, поэтому чтение идёт без блокировок
+    private volatile Map<Integer, Node> nodes = new ConcurrentHashMap<>();
+
+    //Построить граф заново по таблице user_friends
+    @PostConstruct
+    public synchronized void reload() {
+        Map<Integer, IntList[]> lists = new HashMap<>();
+        int[] edges = new int[1];
+        jdbcTemplate.query("SELECT user_id, friend_id, friendship_type_id FROM user_friends", rs -> {
+            int userId = rs.getInt("user_id");
+            int friendId = rs.getInt("friend_id");
+            lists(lists, userId)[0].add(friendId);
+            IntList[] friendLists = lists(lists, friendId);
+            friendLists[2].add(userId);
+            if (rs.getInt("friendship_type_id") == CONFIRMED) {
+                friendLists[1].add(userId);
+            }
+            edges[0]++;
+        });
+
+        Map<Integer, Node> newNodes = new ConcurrentHashMap<>();
+        lists.forEach((userId, userLists) ->
+                newNodes.put(userId, new Node(sorted(userLists[0]), sorted(userLists[1]), sorted(userLists[2]))));
+        nodes = newNodes;
+        log.info("Граф дружбы построен: пользователей {}, связей {}", newNodes.size(), edges[0]);
+    }
+
+    //Друзья пользователя по возрастанию id: кому он отправил запрос и кто подтвердил его запрос
+    public int[] getFriends(int userId) {
+        Node node = node(userId);
+        return SortedInts.union(node.out(), node.confirmedIn());
+    }
+
+    //Общие друзья: пользователи, связанные с обоими в любом направлении и с любым типом дружбы
+    public int[] getCommonFriends(int firstId, int secondId) {
+        return SortedInts.intersect(getNeighbours(firstId), getNeighbours(secondId));
+    }
+
+    //Все пользователи, связанные с данным записью user_friends в любом направлении
+    public int[] getNeighbours(int userId) {
+        Node node = node(userId);
+        return SortedInts.union(node.out(), node.allIn());
+    }
+
+    //Добавлена неподтверждённая запись user_id -> friend_id
+    public synchronized void addFriend(int userId, int friendId) {
+        Node user = node(userId);
+        nodes.put(userId, new Node(SortedInts.insert(user.out(), friendId), user.confirmedIn(), user.allIn()));
+        Node friend = node(friendId);
+        nodes.put(friendId, new Node(friend.out(), friend.confirmedIn(), SortedInts.insert(friend.allIn(), userId)));
+    }
+
+    //Удалена запись user_id -> friend_id любого типа
+    public synchronized void removeFriend(int userId, int friendId) {
+        Node user = node(userId);
+        nodes.put(userId, new Node(SortedInts.remove(user.out(), friendId), user.confirmedIn(), user.allIn()));
+        Node friend = node(friendId);
+        nodes.put(friendId, new Node(friend.out(),
+                SortedInts.remove(friend.confirmedIn(), userId), SortedInts.remove(friend.allIn(), userId)));
+    }
+
+    //Запись user_id -> friend_id подтверждена
+    public synchronized void confirmFriendship(int userId, int friendId) {
+        if (!SortedInts.contains(node(userId).out(), friendId)) {
+            return;
+        }
+        Node friend = node(friendId);
+        nodes.put(friendId, new Node(friend.out(), SortedInts.insert(friend.confirmedIn(), userId), friend.allIn()));
+    }
+
+    private Node node(int userId) {
+        return nodes.getOrDefault(userId, EMPTY_NODE);
+    }
+
+    private static IntList[] lists(Map<Integer, IntList[]> lists, int userId) {
+        return lists.computeIfAbsent(userId, id -> new IntList[]{new IntList(4), new IntList(4), new IntList(4)});
+    }
+
+    private static int[] sorted(IntList list) {
+        int[] values = list.toArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    //out - кому пользователь отправил запрос (любой тип),
+    //confirmedIn - кто отправил запрос пользователю и получил подтверждение,
+    //allIn - кто отправил запрос пользователю (любой тип)
+    private record Node(int[] out, int[] confirmedIn, int[] allIn) {
+    }
+}
@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntList;
+import ru.yandex.practicum.filmorate.util.LongTopHeap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//Подбор возможных друзей по графу дружбы в памяти.
+//Кандидат - пользователь, с которым у данного есть общие друзья, но нет связи в user_friends.
+//Количество общих друзей - это количество путей длины 2 до кандидата, пути считаются по массивам соседей.
+//Для пользователей с большим окружением подсчёт делится между потоками fork-join,
+//а лучшие N кандидатов отбираются ограниченной кучей
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendSuggestions {
+
+    //начиная с такого количества путей длины 2 подсчёт идёт параллельно
+    private static final long PARALLEL_PATHS = 50_000;
+    //количество путей, которое одна задача fork-join считает сама, не деля дальше
+    private static final long LEAF_PATHS = 10_000;
+
+    private final FriendGraph friendGraph;
+
+    //Лучшие limit кандидатов: по убыванию количества общих друзей, при равенстве по возрастанию id
+    public Result suggest(int userId, int limit) {
+        int[] neighbours = friendGraph.getNeighbours(userId);
+        int[][] adjacency = new int[neighbours.length][];
+        // pathsBefore[i] - количество путей через соседей с индексами меньше i
+        long[] pathsBefore = new long[neighbours.length + 1];
+        for (int i = 0; i < neighbours.length; i++) {
+            adjacency[i] = friendGraph.getNeighbours(neighbours[i]);
+            pathsBefore[i + 1] = pathsBefore[i] + adjacency[i].length;
+        }
+        long paths = pathsBefore[neighbours.length];
+
+        CountTask task = new CountTask(adjacency, pathsBefore, 0, neighbours.length);
+        Counts counts = paths >= PARALLEL_PATHS
+                ? ForkJoinPool.commonPool().invoke(task)
+                : task.countSequentially();
+
+        LongTopHeap top = new LongTopHeap(limit);
+        int skip = 0;
+        for (int i = 0; i < counts.ids().length; i++) {
+            int candidate = counts.ids()[i];
+            // соседи отсортированы, как и кандидаты, поэтому исключаем их одним проходом
+            while (skip < neighbours.length && neighbours[skip] < candidate) {
+                skip++;
+            }
+            if (candidate == userId || (skip < neighbours.length && neighbours[skip] == candidate)) {
+                continue;
+            }
+            top.offer(key(counts.counts()[i], candidate));
+        }
+
+        long[] best = top.toSortedDescending();
+        int[] ids = new int[best.length];
+        int[] mutualFriends = new int[best.length];
+        for (int i = 0; i < best.length; i++) {
+            ids[i] = Integer.MAX_VALUE - (int) best[i];
+            mutualFriends[i] = (int) (best[i] >>> 32);
+        }
+        log.info("Для пользователя {} подобрано {} возможных друзей, просмотрено путей: {}", userId, ids.length, paths);
+        return new Result(ids, mutualFriends);
+    }
+
+    //ключ кандидата: больше общих друзей - больше ключ, при равенстве больше ключ у меньшего id
+    private static long key(int mutualFriends, int userId) {
+        return ((long) mutualFriends << 32) | (Integer.MAX_VALUE - userId);
+    }
+
+    //id кандидатов и количество общих друзей с каждым, в одинаковом порядке
+    public record Result(int[] ids, int[] mutualFriends) {
+    }
+
+    //отсортированные id и количество путей до каждого
+    private record Counts(int[] ids, int[] counts) {
+    }
+
+    //Подсчёт путей через соседей с индексами [from, to).
+    //Диапазон делится пополам по количеству путей, пока в нём больше LEAF_PATHS путей
+    private static final class CountTask extends RecursiveTask<Counts> {
+        private final int[][] adjacency;
+        private final long[] pathsBefore;
+        private final int from;
+        private final int to;
+
+        private CountTask(int[][] adjacency, long[] pathsBefore, int from, int to) {
+            this.adjacency = adjacency;
+            this.pathsBefore = pathsBefore;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Counts compute() {
+            long paths = pathsBefore[to] - pathsBefore[from];
+            if (paths <= LEAF_PATHS || to - from == 1) {
+                return countSequentially();
+            }
+            int mid = splitPoint(pathsBefore[from] + paths / 2);
+            CountTask left = new CountTask(adjacency, pathsBefore, from, mid);
+            CountTask right = new CountTask(adjacency, pathsBefore, mid, to);
+            right.fork();
+            Counts leftCounts = left.compute();
+            return merge(leftCounts, right.join());
+        }
+
+        //Все концы путей собираются в один массив, сортируются и сворачиваются в пары (id, количество)
+        private Counts countSequentially() {
+            IntList ends = new IntList((int) Math.min(pathsBefore[to] - pathsBefore[from] + 1, Integer.MAX_VALUE));
+            for (int i = from; i < to; i++) {
+                for (int end : adjacency[i]) {
+                    ends.add(end);
+                }
+            }
+            int[] sorted = ends.toArray();
+            Arrays.sort(sorted);
+
+            IntList ids = new IntList();
+            IntList counts = new IntList();
+            int i = 0;
+            while (i < sorted.length) {
+                int j = i + 1;
+                while (j < sorted.length && sorted[j] == sorted[i]) {
+                    j++;
+                }
+                ids.add(sorted[i]);
+                counts.add(j - i);
+                i = j;
+            }
+            return new Counts(ids.toArray(), counts.toArray());
+        }
+
+        //Индекс соседа, на котором количество путей от начала достигает half (не крайние индексы диапазона)
+        private int splitPoint(long half) {
+            int pos = Arrays.binarySearch(pathsBefore, from, to + 1, half);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            return Math.min(Math.max(pos, from + 1), to - 1);
+        }
+
+        private static Counts merge(Counts a, Counts b) {
+            IntList ids = new IntList(a.ids().length + b.ids().length);
+            IntList counts = new IntList(a.ids().length + b.ids().length);
+            int i = 0;
+            int j = 0;
+            while (i < a.ids().length || j < b.ids().length) {
+                if (j == b.ids().length || (i < a.ids().length && a.ids()[i] < b.ids()[j])) {
+                    ids.add(a.ids()[i]);
+                    counts.add(a.counts()[i++]);
+                } else if (i == a.ids().length || b.ids()[j] < a.ids()[i]) {
+                    ids.add(b.ids()[j]);
+                    counts.add(b.counts()[j++]);
+                } else {
+                    ids.add(a.ids()[i]);
+                    counts.add(a.counts()[i++] + b.counts()[j++]);
+                }
+            }
+            return new Counts(ids.toArray(), counts.toArray());
+        }
+    }
+}
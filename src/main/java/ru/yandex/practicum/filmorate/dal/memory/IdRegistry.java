@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.ConcurrentBitSet;
+
+//Реестр существующих id фильмов и пользователей: по биту на id.
+//Заполняется из БД при старте и пополняется репозиториями при добавлении фильма или пользователя,
+//поэтому проверка существования обычно не требует запроса к БД.
+//Если id в реестре нет, он проверяется по БД: так учитываются строки, добавленные в обход приложения.
+//Найденный id заносится в реестр, а отсутствующий проверяется запросом при каждом обращении:
+//отрицательный ответ не запоминается, иначе строка, добавленная позже в обход приложения, осталась бы не видна
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdRegistry {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile ConcurrentBitSet films = new ConcurrentBitSet();
+    private volatile ConcurrentBitSet users = new ConcurrentBitSet();
+
+    //Заполнить реестр заново по таблицам films и users
+    @PostConstruct
+    public synchronized void reload() {
+        ConcurrentBitSet newFilms = load("SELECT id FROM films");
+        ConcurrentBitSet newUsers = load("SELECT id FROM users");
+        films = newFilms;
+        users = newUsers;
+        log.info("Реестр id заполнен: фильмов {}, пользователей {}", newFilms.cardinality(), newUsers.cardinality());
+    }
+
+    public boolean filmExists(int filmId) {
+        return exists(films, filmId, "SELECT COUNT(*) FROM films WHERE id = ?");
+    }
+
+    public boolean userExists(int userId) {
+        return exists(users, userId, "SELECT COUNT(*) FROM users WHERE id = ?");
+    }
+
+    //Есть ли id в реестре, без обращения к БД
+    public boolean isKnownFilm(int filmId) {
+        return films.get(filmId);
+    }
+
+    public boolean isKnownUser(int userId) {
+        return users.get(userId);
+    }
+
+    public void registerFilm(int filmId) {
+        films.set(filmId);
+    }
+
+    public void registerUser(int userId) {
+        users.set(userId);
+    }
+
+    private boolean exists(ConcurrentBitSet ids, int id, String sql) {
+        if (ids.get(id)) {
+            return true;
+        }
+        if (id <= 0) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
+        if (count == null || count == 0) {
+            return false;
+        }
+        ids.set(id);
+        return true;
+    }
+
+    private ConcurrentBitSet load(String sql) {
+        ConcurrentBitSet ids = new ConcurrentBitSet();
+        jdbcTemplate.query(sql, rs -> {
+            ids.set(rs.getInt(1));
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+//Упорядоченный индекс фильмов по рейтингу (количеству лайков) в памяти.
+//Строится из БД при старте и поддерживается FilmRepository при каждом изменении rate,
+//поэтому топ N фильмов получается за O(N) без сортировки всей таблицы films
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularityIndex {
+
+    //отметка в rates для id, которых нет в индексе
+    private static final int NO_RATE = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //ключи (rate, filmId), упакованные в long так, что порядок по возрастанию ключа -
+    //это порядок по убыванию рейтинга, а при равном рейтинге - по возрастанию id
+    private volatile ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+    //текущий рейтинг фильма по его id (NO_RATE, если фильма нет в индексе), нужен чтобы найти старый ключ
+    //при изменении. id выдаются БД подряд, поэтому массив почти не содержит пропусков, а чтение рейтинга
+    //при ранжировании результатов поиска не упаковывает id в Integer
+    private volatile int[] rates = {NO_RATE};
+    private int size;
+
+    //Построить индекс заново по таблице films
+    @PostConstruct
+    public synchronized void rebuild() {
+        ConcurrentSkipListSet<Long> newRanking = new ConcurrentSkipListSet<>();
+        rates = new int[]{NO_RATE};
+        size = 0;
+        jdbcTemplate.query("SELECT id, rate FROM films", rs -> {
+            int filmId = rs.getInt("id");
+            int rate = rs.getInt("rate");
+            setRate(filmId, rate);
+            newRanking.add(key(rate, filmId));
+        });
+        ranking = newRanking;
+        log.info("Индекс популярности построен, фильмов в индексе: {}", size);
+    }
+
+    //Установить рейтинг фильма (добавляет фильм в индекс, если его там нет)
+    public synchronized void put(int filmId, int rate) {
+        int oldRate = getRateOrAbsent(filmId);
+        setRate(filmId, rate);
+        if (oldRate != NO_RATE) {
+            ranking.remove(key(oldRate, filmId));
+        }
+        ranking.add(key(rate, filmId));
+    }
+
+    //Изменить рейтинг фильма на delta, рейтинг не опускается ниже нуля.
+    //Фильмы, которых нет в индексе, игнорируются
+    public synchronized void increment(int filmId, int delta) {
+        int oldRate = getRateOrAbsent(filmId);
+        if (oldRate == NO_RATE) {
+            return;
+        }
+        put(filmId, Math.max(oldRate + delta, 0));
+    }
+
+    //Рейтинг фильма или 0, если фильма нет в индексе
+    public int getRate(int filmId) {
+        return Math.max(getRateOrAbsent(filmId), 0);
+    }
+
+    //Есть ли фильм в индексе
+    public boolean contains(int filmId) {
+        return getRateOrAbsent(filmId) != NO_RATE;
+    }
+
+    //id первых limit фильмов по убыванию рейтинга
+    public List<Integer> top(int limit) {
+        List<Integer> result = new ArrayList<>(Math.min(limit, size));
+        Iterator<Long> iterator = ranking.iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add((int) (iterator.next() & 0xFFFFFFFFL));
+        }
+        return result;
+    }
+
+    private int getRateOrAbsent(int filmId) {
+        int[] current = rates;
+        return filmId >= 0 && filmId < current.length ? current[filmId] : NO_RATE;
+    }
+
+    // вызывается под блокировкой: новый массив публикуется только после копирования старых значений
+    private void setRate(int filmId, int rate) {
+        int[] current = rates;
+        if (filmId >= current.length) {
+            int oldLength = current.length;
+            current = Arrays.copyOf(current, Math.max(filmId + 1, oldLength * 2));
+            Arrays.fill(current, oldLength, current.length, NO_RATE);
+        }
+        if (current[filmId] == NO_RATE) {
+            size++;
+        }
+        current[filmId] = rate;
+        rates = current;
+    }
+
+    private static long key(int rate, int filmId) {
+        return ((long) (Integer.MAX_VALUE - rate) << 32) | (filmId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.mappers.GenreMapper;
+import ru.yandex.practicum.filmorate.mappers.MpaRatingMapper;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+//Справочники жанров и МРА рейтингов в памяти.
+//Таблицы маленькие и почти не меняются, поэтому загружаются целиком при старте
+//в неизменяемые массивы, индексированные по id. После изменения справочников в БД нужно вызвать reload().
+//Возвращаемые объекты общие для всех вызовов и не должны изменяться.
+//Для каждого справочника хранится ETag - хеш его содержимого, он меняется только вместе с данными.
+//Типы дружбы не загружаются: репозитории сравнивают friendship_type_id с известными id и не читают названия
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataCache {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Snapshot snapshot = new Snapshot(new Genre[0], List.of(), eTag(List.of()),
+            new MpaRating[0], List.of(), eTag(List.of()));
+
+    //Перезагрузить справочники из БД
+    @PostConstruct
+    public synchronized void reload() {
+        List<Genre> genres = List.copyOf(jdbcTemplate.query("SELECT id, name FROM genre ORDER BY id",
+                new GenreMapper()));
+        List<MpaRating> mpa = List.copyOf(jdbcTemplate.query("SELECT id, name FROM mpa_rating ORDER BY id",
+                new MpaRatingMapper()));
+
+        snapshot = new Snapshot(
+                index(genres, Genre::getId, new Genre[maxId(genres, Genre::getId) + 1]), genres, eTag(genres),
+                index(mpa, MpaRating::getId, new MpaRating[maxId(mpa, MpaRating::getId) + 1]), mpa, eTag(mpa));
+        log.info("Справочники загружены: жанров {}, МРА рейтингов {}", genres.size(), mpa.size());
+    }
+
+    //Жанр по id или null, если такого жанра нет
+    public Genre getGenre(int id) {
+        return get(snapshot.genresById(), id);
+    }
+
+    //Все жанры по возрастанию id
+    public List<Genre> getGenres() {
+        return snapshot.genres();
+    }
+
+    //ETag справочника жанров
+    public String getGenresETag() {
+        return snapshot.genresETag();
+    }
+
+    //МРА рейтинг по id или null, если такого рейтинга нет
+    public MpaRating getMpa(int id) {
+        return get(snapshot.mpaById(), id);
+    }
+
+    //Все МРА рейтинги по возрастанию id
+    public List<MpaRating> getAllMpa() {
+        return snapshot.mpa();
+    }
+
+    //ETag справочника МРА рейтингов
+    public String getMpaETag() {
+        return snapshot.mpaETag();
+    }
+
+    private static <T> T get(T[] byId, int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    private static <T> int maxId(List<T> items, ToIntFunction<T> id) {
+        return items.stream().mapToInt(id).max().orElse(-1);
+    }
+
+    private static String eTag(List<?> items) {
+        return items.size() + "-" + Integer.toHexString(items.hashCode());
+    }
+
+    private static <T> T[] index(List<T> items, ToIntFunction<T> id, T[] byId) {
+        for (T item : items) {
+            byId[id.applyAsInt(item)] = item;
+        }
+        return byId;
+    }
+
+    //все справочники, загруженные за один раз - заменяются целиком при перезагрузке
+    private record Snapshot(Genre[] genresById, List<Genre> genres, String genresETag,
+                            MpaRating[] mpaById, List<MpaRating> mpa, String mpaETag) {
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//страница выдачи с курсором для запроса следующей страницы
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageDto<T> {
+    //элементы страницы
+    private List<T> items = new ArrayList<>();
+    //значение параметра after для следующей страницы, null - если страница последняя
+    private Integer nextCursor;
+}
@@ -1,5 +1,8 @@
 package ru.yandex.practicum.filmorate.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -9,7 +12,9 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+//Фильтр FilmFields.FILTER оставляет в ответе только поля из параметра fields=, по умолчанию пишутся все поля
 @Data
+@JsonFilter(FilmFields.FILTER)
 public class FilmDto {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private int id;
@@ -19,6 +24,11 @@ public class FilmDto {
     private int duration;
     private int rate;
     private MpaRating mpa;
+    //null, если лайки в ответах передаются только количеством (rate) - тогда поле не пишется
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Integer> likes = new ArrayList<>();
     private List<Genre> genres = new ArrayList<>();
+    //версия строки films, в ответ не попадает - передаётся в ETag
+    @JsonIgnore
+    private long version;
 }
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//Поля FilmDto, запрошенные параметром fields= (например, fields=id,name,rate).
+//По набору полей FilmRepository выбирает колонки films и решает, читать ли лайки и жанры,
+//а сериализатор пишет только эти поля через фильтр Jackson FILTER. id читается всегда: по нему
+//строятся страницы и собираются лайки и жанры, но в ответ он попадает, только если запрошен
+public final class FilmFields {
+
+    //id фильтра Jackson на FilmDto
+    public static final String FILTER = "filmFields";
+
+    public static final FilmFields ALL = new FilmFields(EnumSet.allOf(Field.class));
+
+    private final Set<Field> fields;
+
+    private FilmFields(Set<Field> fields) {
+        this.fields = fields;
+    }
+
+    //Разобрать значение параметра fields; null или пустая строка - все поля
+    public static FilmFields parse(String value) {
+        if (value == null || value.isBlank()) {
+            return ALL;
+        }
+        EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+        for (String name : value.split(",")) {
+            fields.add(Field.byName(name.trim()));
+        }
+        return fields.size() == Field.values().length ? ALL : new FilmFields(fields);
+    }
+
+    public boolean isAll() {
+        return fields.size() == Field.values().length;
+    }
+
+    public boolean contains(Field field) {
+        return fields.contains(field);
+    }
+
+    //Колонки films для SELECT: id и колонки запрошенных полей
+    public String columns() {
+        StringBuilder columns = new StringBuilder("id");
+        for (Field field : fields) {
+            if (field.column != null && field != Field.ID) {
+                columns.append(", ").append(field.column);
+            }
+        }
+        return columns.toString();
+    }
+
+    //Имена запрошенных свойств FilmDto
+    public Set<String> propertyNames() {
+        return fields.stream().map(field -> field.property).collect(Collectors.toSet());
+    }
+
+    //Запрошенные поля через запятую в постоянном порядке
+    @Override
+    public String toString() {
+        return fields.stream().map(field -> field.property).collect(Collectors.joining(","));
+    }
+
+    public enum Field {
+        ID("id", "id"),
+        NAME("name", "name"),
+        DESCRIPTION("description", "description"),
+        RELEASE_DATE("releaseDate", "release_date"),
+        DURATION("duration", "duration"),
+        RATE("rate", "rate"),
+        MPA("mpa", "mpa_rating_id"),
+        LIKES("likes", null),
+        GENRES("genres", null);
+
+        //имя свойства в JSON
+        private final String property;
+        //колонка films или null, если поле собирается из других таблиц
+        private final String column;
+
+        Field(String property, String column) {
+            this.property = property;
+            this.column = column;
+        }
+
+        static Field byName(String property) {
+            for (Field field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new NotFoundException("Неизвестное поле фильма: " + property);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//предлагаемый друг и количество общих с пользователем друзей
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FriendSuggestionDto {
+    private UserDto user;
+    private int mutualFriends;
+}
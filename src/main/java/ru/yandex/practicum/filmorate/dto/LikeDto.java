@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//лайк: пользователь userId поставил лайк фильму filmId
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeDto {
+    private int filmId;
+    private int userId;
+}
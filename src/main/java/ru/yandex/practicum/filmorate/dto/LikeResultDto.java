@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//результат обработки одного лайка из пакета
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeResultDto {
+    private int filmId;
+    private int userId;
+    private LikeStatus status;
+}
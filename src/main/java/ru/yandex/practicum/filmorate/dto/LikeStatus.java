@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.dto;
+
+//итог обработки лайка из пакета
+public enum LikeStatus {
+    //лайк добавлен
+    ADDED,
+    //лайк уже был поставлен раньше или повторяется в пакете
+    DUPLICATE,
+    //фильм не найден
+    FILM_NOT_FOUND,
+    //пользователь не найден
+    USER_NOT_FOUND
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -13,4 +14,7 @@ public class UserDto {
     private String login;
     private String name;
     private LocalDate birthday;
+    //версия строки users, в ответ не попадает - передаётся в ETag
+    @JsonIgnore
+    private long version;
 }
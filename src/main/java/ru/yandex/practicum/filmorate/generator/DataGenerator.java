@@ -0,0 +1,452 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+//Генератор синтетических данных для нагрузочного тестирования: пользователи, фильмы с жанрами,
+//лайки и граф дружбы заданного размера. Данные добавляются к тому, что уже есть в БД.
+//Популярность фильмов и активность пользователей подчиняются степенному закону (распределение Ципфа),
+//граф дружбы строится предпочтительным присоединением, поэтому у небольшой части пользователей много друзей.
+//Результат полностью определяется зерном: одинаковые настройки на пустой БД дают одинаковые данные
+@Slf4j
+public class DataGenerator {
+
+    //Доля от всех фильмов, больше которой один пользователь не лайкает
+    private static final int MAX_USER_LIKES_DIVISOR = 10;
+    //Сколько раз подряд фильм для лайка выбирается по популярности, прежде чем выбрать его равномерно
+    private static final int MAX_SAMPLE_ATTEMPTS = 32;
+    //Сколько строк копится для сортировки перед записью (8 МБ)
+    private static final int SORT_BUFFER = 1 << 20;
+    //Таблицы, в которые пишется основной объём строк
+    private static final List<String> BULK_TABLES = List.of("film_genres", "film_likes", "user_friends");
+    private static final LocalDate MIN_BIRTHDAY = LocalDate.of(1950, 1, 1);
+    private static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1920, 1, 1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
+    //Настройки генерации.
+    //likesExponent - показатель распределения популярности фильмов, activityExponent - активности пользователей,
+    //friendsPerUser - среднее количество друзей, confirmedShare - доля подтверждённых дружб
+    public record Settings(long seed, int users, int films, long likes, int friendsPerUser,
+                           double likesExponent, double activityExponent, double confirmedShare, int batchSize) {
+    }
+
+    //Сколько строк добавлено. Добавленные пользователи и фильмы получают id подряд начиная с firstUserId и firstFilmId
+    public record Summary(int firstUserId, int users, int firstFilmId, int films, long likes, long friendships,
+                          long elapsedMs) {
+    }
+
+    public Summary generate(Settings settings) {
+        long start = System.currentTimeMillis();
+        int[] genreIds = ids("SELECT id FROM genre ORDER BY id");
+        int[] mpaIds = ids("SELECT id FROM mpa_rating ORDER BY id");
+        if (genreIds.length == 0 || mpaIds.length == 0) {
+            throw new IllegalStateException("Справочники жанров и МРА рейтингов пусты, сначала нужно применить миграции");
+        }
+        log.info("Генерация данных: {}", settings);
+
+        // у каждого этапа свой поток случайных чисел, поэтому изменение одного этапа не меняет остальные
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        SplittableRandom userRandom = random.split();
+        SplittableRandom filmRandom = random.split();
+        SplittableRandom likeRandom = random.split();
+        SplittableRandom friendRandom = random.split();
+
+        // вторичные индексы и внешние ключи таблиц связей на время загрузки снимаются и строятся заново в конце:
+        // построение индекса по готовой таблице во много раз быстрее, чем его обновление на каждой вставке
+        List<String> deferred = new ArrayList<>();
+        try {
+            for (String table : BULK_TABLES) {
+                dropSecondaryIndexes(table, deferred);
+            }
+            int firstUserId = insertUsers(settings, userRandom);
+            int firstFilmId = insertFilms(settings, filmRandom, genreIds, mpaIds);
+            long likes = insertLikes(settings, likeRandom, firstUserId, firstFilmId);
+            long friendships = insertFriendships(settings, friendRandom, firstUserId);
+            restoreIndexes(deferred);
+            deferred.clear();
+
+            Summary summary = new Summary(firstUserId, settings.users(), firstFilmId, settings.films(), likes,
+                    friendships, System.currentTimeMillis() - start);
+            log.info("Генерация завершена за {} мс: пользователей {}, фильмов {}, лайков {}, строк дружбы {}",
+                    summary.elapsedMs(), summary.users(), summary.films(), summary.likes(), summary.friendships());
+            return summary;
+        } finally {
+            // при ошибке индексы всё равно возвращаются, чтобы БД не осталась без них
+            restoreIndexes(deferred);
+        }
+    }
+
+    //Снять вторичные индексы и внешние ключи таблицы.
+    //Определения берутся из SCRIPT в том виде, в каком их создали миграции, и добавляются в restore
+    //до выполнения DROP, поэтому при ошибке посреди снятия уже снятые индексы и ключи будут восстановлены.
+    //Внешние ключи восстанавливаются с NOCHECK: генератор ссылается только на строки, которые сам вставил
+    private void dropSecondaryIndexes(String table, List<String> restore) {
+        List<String> indexes = new ArrayList<>();
+        List<String> foreignKeys = new ArrayList<>();
+        for (String sql : jdbcTemplate.queryForList("SCRIPT NODATA NOSETTINGS TABLE " + table, String.class)) {
+            if (sql.startsWith("CREATE INDEX ")) {
+                indexes.add(sql);
+            } else if (sql.startsWith("ALTER TABLE ") && sql.contains(" FOREIGN KEY(")) {
+                foreignKeys.add(sql);
+            }
+        }
+        // внешний ключ может опираться на вторичный индекс, поэтому ключи снимаются первыми
+        // определения восстанавливаются с IF NOT EXISTS: индекс или ключ, DROP которого не прошёл, остался на месте
+        for (String sql : foreignKeys) {
+            restore.add(sql.replace(" ADD CONSTRAINT ", " ADD CONSTRAINT IF NOT EXISTS "));
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + quotedName(sql, " ADD CONSTRAINT "));
+        }
+        for (String sql : indexes) {
+            restore.add(sql.replace("CREATE INDEX ", "CREATE INDEX IF NOT EXISTS "));
+            jdbcTemplate.execute("DROP INDEX " + quotedName(sql, "CREATE INDEX "));
+        }
+        log.info("Таблица {}: на время загрузки сняты индексы {} и внешние ключи {}", table, indexes.size(),
+                foreignKeys.size());
+    }
+
+    private void restoreIndexes(List<String> statements) {
+        if (statements.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // индексы создаются раньше внешних ключей, которые могут на них опираться
+        for (String sql : statements) {
+            if (sql.startsWith("CREATE INDEX ")) {
+                jdbcTemplate.execute(sql);
+            }
+        }
+        for (String sql : statements) {
+            if (!sql.startsWith("CREATE INDEX ")) {
+                jdbcTemplate.execute(sql);
+            }
+        }
+        log.info("Индексы и внешние ключи восстановлены за {} мс", System.currentTimeMillis() - start);
+    }
+
+    //Имя объекта вида "PUBLIC"."NAME", следующее в DDL за prefix
+    private static String quotedName(String sql, String prefix) {
+        int from = sql.indexOf(prefix) + prefix.length();
+        int schemaEnd = sql.indexOf('.', from);
+        int nameEnd = sql.indexOf('"', schemaEnd + 2);
+        return sql.substring(from, nameEnd + 1);
+    }
+
+    private int insertUsers(Settings settings, SplittableRandom random) {
+        int firstId = nextId("users");
+        List<Object[]> batch = new ArrayList<>(settings.batchSize());
+        for (int i = 0; i < settings.users(); i++) {
+            String name = randomName(random);
+            String login = name + "_" + (firstId + i);
+            batch.add(new Object[]{login + "@example.com", login, displayName(name),
+                    Date.valueOf(MIN_BIRTHDAY.plusDays(random.nextInt(60 * 365)))});
+            if (batch.size() == settings.batchSize() || i == settings.users() - 1) {
+                executeBatch("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        checkInserted("users", firstId, settings.users());
+        log.info("Добавлено пользователей: {}", settings.users());
+        return firstId;
+    }
+
+    private int insertFilms(Settings settings, SplittableRandom random, int[] genreIds, int[] mpaIds) {
+        int firstId = nextId("films");
+        List<Object[]> batch = new ArrayList<>(settings.batchSize());
+        for (int i = 0; i < settings.films(); i++) {
+            batch.add(new Object[]{displayName(randomName(random)), "Сгенерированный фильм " + (firstId + i),
+                    Date.valueOf(MIN_RELEASE_DATE.plusDays(random.nextInt(100 * 365))),
+                    60 + random.nextInt(150), mpaIds[random.nextInt(mpaIds.length)]});
+            if (batch.size() == settings.batchSize() || i == settings.films() - 1) {
+                executeBatch("INSERT INTO films (name, description, release_date, duration, mpa_rating_id) "
+                        + "VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        checkInserted("films", firstId, settings.films());
+
+        // от одного до трёх разных жанров у каждого фильма
+        PairBatch genres = new PairBatch("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
+                settings.batchSize(), false);
+        for (int i = 0; i < settings.films(); i++) {
+            int count = 1 + random.nextInt(Math.min(3, genreIds.length));
+            int offset = random.nextInt(genreIds.length);
+            for (int g = 0; g < count; g++) {
+                genres.add(firstId + i, genreIds[(offset + g) % genreIds.length]);
+            }
+        }
+        genres.flush();
+        log.info("Добавлено фильмов: {}, связей с жанрами: {}", settings.films(), genres.total);
+        return firstId;
+    }
+
+    //Каждому пользователю достаётся число лайков по степенному закону от его случайного ранга активности,
+    //а фильмы для лайков выбираются по степенному закону от случайного ранга популярности фильма
+    private long insertLikes(Settings settings, SplittableRandom random, int firstUserId, int firstFilmId) {
+        if (settings.likes() == 0 || settings.users() == 0 || settings.films() == 0) {
+            return 0;
+        }
+        ZipfDistribution popularity = new ZipfDistribution(settings.films(), settings.likesExponent());
+        int[] filmByRank = ZipfDistribution.shuffled(settings.films(), random);
+        int[] userByRank = ZipfDistribution.shuffled(settings.users(), random);
+        int maxUserLikes = Math.max(1, settings.films() / MAX_USER_LIKES_DIVISOR);
+        double scale = activityScale(settings, maxUserLikes);
+
+        int[] filmLikes = new int[settings.films()];
+        // likedBy[film] - последний пользователь (ранг + 1), лайкнувший фильм: проверка повторов без множества
+        int[] likedBy = new int[settings.films()];
+        PairBatch batch = new PairBatch("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)",
+                settings.batchSize(), true);
+        for (int rank = 0; rank < settings.users(); rank++) {
+            double expected = Math.min(scale * ZipfDistribution.weight(rank, settings.activityExponent()),
+                    maxUserLikes);
+            int count = (int) expected;
+            if (random.nextDouble() < expected - count) {
+                count++;
+            }
+            int userId = firstUserId + userByRank[rank];
+            for (int n = 0; n < count; n++) {
+                int film = filmByRank[popularity.sample(random)];
+                // при сильном перекосе популярные фильмы быстро заканчиваются, и после серии повторов
+                // фильм выбирается равномерно, чтобы выборка не зацикливалась на уже лайкнутых
+                for (int attempt = 0; likedBy[film] == rank + 1; attempt++) {
+                    film = attempt < MAX_SAMPLE_ATTEMPTS
+                            ? filmByRank[popularity.sample(random)] : random.nextInt(settings.films());
+                }
+                likedBy[film] = rank + 1;
+                filmLikes[film]++;
+                batch.add(firstFilmId + film, userId);
+            }
+        }
+        batch.flush();
+
+        // рейтинг фильма - количество лайков
+        PairBatch rates = new PairBatch("UPDATE films SET rate = ? WHERE id = ?", settings.batchSize(), false);
+        for (int film = 0; film < filmLikes.length; film++) {
+            if (filmLikes[film] > 0) {
+                rates.add(filmLikes[film], firstFilmId + film);
+            }
+        }
+        rates.flush();
+        log.info("Добавлено лайков: {}", batch.total);
+        return batch.total;
+    }
+
+    //Множитель весов активности, при котором сумма лайков пользователей с учётом ограничения maxUserLikes
+    //равна заданному количеству: лайки, срезанные у самых активных, достаются остальным.
+    //Сумма растёт с множителем монотонно, поэтому он ищется делением отрезка пополам
+    private static double activityScale(Settings settings, int maxUserLikes) {
+        if (settings.likes() >= (long) maxUserLikes * settings.users()) {
+            return Double.MAX_VALUE;
+        }
+        double low = 0;
+        double high = (double) maxUserLikes / ZipfDistribution.weight(settings.users() - 1, settings.activityExponent());
+        for (int i = 0; i < 60; i++) {
+            double middle = (low + high) / 2;
+            double sum = 0;
+            for (int rank = 0; rank < settings.users(); rank++) {
+                sum += Math.min(middle * ZipfDistribution.weight(rank, settings.activityExponent()), maxUserLikes);
+            }
+            if (sum < settings.likes()) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    //Граф дружбы по модели предпочтительного присоединения: каждый новый пользователь дружит с несколькими
+    //уже добавленными, и вероятность выбрать пользователя пропорциональна количеству его друзей.
+    //Подтверждённая дружба записывается двумя встречными строками, неподтверждённая - одной строкой от отправителя
+    private long insertFriendships(Settings settings, SplittableRandom random, int firstUserId) {
+        int perUser = settings.friendsPerUser() / 2;
+        if (perUser == 0 || settings.users() < 2) {
+            return 0;
+        }
+        int[] order = ZipfDistribution.shuffled(settings.users(), random);
+        // концы всех рёбер: случайный элемент - пользователь с вероятностью, пропорциональной числу друзей
+        int[] endpoints = new int[(int) Math.min(Integer.MAX_VALUE - 8, 2L * perUser * settings.users())];
+        int endpointCount = 0;
+        int[] pickedBy = new int[settings.users()];
+        int[] targets = new int[perUser];
+        // тип дружбы - константа в запросе, поэтому подтверждённые строки и запросы пишутся разными пакетами
+        PairBatch confirmed = new PairBatch(
+                "INSERT INTO user_friends (user_id, friend_id, friendship_type_id) VALUES (?, ?, 2)",
+                settings.batchSize(), true);
+        PairBatch requests = new PairBatch(
+                "INSERT INTO user_friends (user_id, friend_id, friendship_type_id) VALUES (?, ?, 1)",
+                settings.batchSize(), true);
+        for (int i = 1; i < settings.users(); i++) {
+            int user = order[i];
+            int count = Math.min(perUser, i);
+            for (int n = 0; n < count; n++) {
+                int target;
+                do {
+                    target = endpointCount == 0
+                            ? order[random.nextInt(i)] : endpoints[random.nextInt(endpointCount)];
+                } while (pickedBy[target] == i);
+                pickedBy[target] = i;
+                targets[n] = target;
+            }
+            for (int n = 0; n < count; n++) {
+                int friend = targets[n];
+                if (random.nextDouble() < settings.confirmedShare()) {
+                    // так подтверждённую дружбу оставляют два встречных запроса через API
+                    confirmed.add(firstUserId + user, firstUserId + friend);
+                    requests.add(firstUserId + friend, firstUserId + user);
+                } else if (random.nextBoolean()) {
+                    requests.add(firstUserId + user, firstUserId + friend);
+                } else {
+                    requests.add(firstUserId + friend, firstUserId + user);
+                }
+                if (endpointCount + 2 <= endpoints.length) {
+                    endpoints[endpointCount++] = user;
+                    endpoints[endpointCount++] = friend;
+                }
+            }
+        }
+        confirmed.flush();
+        requests.flush();
+        long rows = confirmed.total + requests.total;
+        log.info("Добавлено строк дружбы: {}", rows);
+        return rows;
+    }
+
+    private void executeBatch(String sql, List<Object[]> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+    }
+
+    private int nextId(String table) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Integer.class);
+    }
+
+    //id строк берутся из последовательности таблицы, а генератор считает их подряд идущими от MAX(id) + 1.
+    //Если последовательность ушла вперёд (например, после удалений), связи получились бы неверными
+    private void checkInserted(String table, int firstId, int count) {
+        Integer inserted = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id BETWEEN ? AND ?",
+                Integer.class, firstId, firstId + count - 1);
+        if (inserted == null || inserted != count) {
+            throw new IllegalStateException("Строки таблицы " + table + " получили id не подряд начиная с " + firstId
+                    + ", генерация прервана");
+        }
+    }
+
+    private int[] ids(String sql) {
+        return jdbcTemplate.queryForList(sql, Integer.class).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    //Имя вида "прилагательное_фамилия" из словарей names-generator Docker.
+    //MobyNamesGenerator.getRandomName() берёт случайные числа из своего Random без зерна,
+    //поэтому слова выбираются здесь из тех же словарей, сохранённых в ресурсах
+    private static String randomName(SplittableRandom random) {
+        return NameWords.ADJECTIVES[random.nextInt(NameWords.ADJECTIVES.length)] + "_"
+                + NameWords.SURNAMES[random.nextInt(NameWords.SURNAMES.length)];
+    }
+
+    private static String displayName(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        for (String word : name.split("_")) {
+            if (!result.isEmpty()) {
+                result.append(' ');
+            }
+            result.append(word.substring(0, 1).toUpperCase(Locale.ROOT)).append(word.substring(1));
+        }
+        return result.toString();
+    }
+
+    //Словари имён из generator/*.txt: по слову в строке, строки с # - комментарии
+    private static final class NameWords {
+        static final String[] ADJECTIVES = words("generator/name-adjectives.txt");
+        static final String[] SURNAMES = words("generator/name-surnames.txt");
+
+        private static String[] words(String resource) {
+            try (InputStream stream = new ClassPathResource(resource).getInputStream()) {
+                return new String(stream.readAllBytes(), StandardCharsets.UTF_8).lines()
+                        .map(String::strip)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .toArray(String[]::new);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Не удалось прочитать словарь " + resource, ex);
+            }
+        }
+    }
+
+    //Пакетная запись пар int без упаковки значений в объекты: строки копятся в буфере
+    //и пишутся пакетами по batchSize, каждый пакет в своей транзакции.
+    //В режиме sorted буфер перед записью сортируется по паре значений: строки попадают в индексы БД
+    //почти по порядку, и вставка большого объёма случайных пар идёт примерно в полтора раза быстрее
+    private final class PairBatch {
+        private final String sql;
+        private final int batchSize;
+        private final long[] pairs;
+        private final boolean sorted;
+        private int size;
+        private long total;
+
+        PairBatch(String sql, int batchSize, boolean sorted) {
+            this.sql = sql;
+            this.batchSize = batchSize;
+            this.sorted = sorted;
+            this.pairs = new long[sorted ? Math.max(SORT_BUFFER, batchSize) : batchSize];
+        }
+
+        void add(int first, int second) {
+            pairs[size++] = ((long) first << 32) | (second & 0xFFFFFFFFL);
+            if (size == pairs.length) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (sorted) {
+                Arrays.sort(pairs, 0, size);
+            }
+            for (int from = 0; from < size; from += batchSize) {
+                int offset = from;
+                int count = Math.min(batchSize, size - from);
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql,
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                long pair = pairs[offset + i];
+                                ps.setInt(1, (int) (pair >> 32));
+                                ps.setInt(2, (int) pair);
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return count;
+                            }
+                        }));
+            }
+            total += size;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+//Запуск генератора данных из командной строки в профиле generate:
+//java -jar filmorate.jar --spring.profiles.active=generate --filmorate.generator.likes=10000000
+//Профиль не поднимает веб-сервер, поэтому приложение завершается сразу после генерации.
+//Настройки по умолчанию - в application-generate.properties
+@Component
+@Profile("generate")
+public class DataGeneratorRunner implements ApplicationRunner {
+
+    private final DataGenerator dataGenerator;
+    private final DataGenerator.Settings settings;
+
+    public DataGeneratorRunner(JdbcTemplate jdbcTemplate,
+                               @Value("${filmorate.generator.seed}") long seed,
+                               @Value("${filmorate.generator.users}") int users,
+                               @Value("${filmorate.generator.films}") int films,
+                               @Value("${filmorate.generator.likes}") long likes,
+                               @Value("${filmorate.generator.friends-per-user}") int friendsPerUser,
+                               @Value("${filmorate.generator.likes-exponent}") double likesExponent,
+                               @Value("${filmorate.generator.activity-exponent}") double activityExponent,
+                               @Value("${filmorate.generator.confirmed-share}") double confirmedShare,
+                               @Value("${filmorate.generator.batch-size}") int batchSize) {
+        this.dataGenerator = new DataGenerator(jdbcTemplate);
+        this.settings = new DataGenerator.Settings(seed, users, films, likes, friendsPerUser,
+                likesExponent, activityExponent, confirmedShare, batchSize);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        dataGenerator.generate(settings);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//Степенное распределение Ципфа на рангах 0..n-1: вес ранга k пропорционален 1 / (k + 1)^exponent.
+//Накопленные веса считаются один раз, выборка - двоичный поиск по ним за O(log n)
+class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    ZipfDistribution(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += weight(k, exponent);
+            cumulative[k] = sum;
+        }
+    }
+
+    static double weight(int rank, double exponent) {
+        return 1.0 / Math.pow(rank + 1, exponent);
+    }
+
+    int size() {
+        return cumulative.length;
+    }
+
+    double totalWeight() {
+        return cumulative[cumulative.length - 1];
+    }
+
+    //Случайный ранг
+    int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * totalWeight());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    //Случайная перестановка 0..n-1: ранг -> индекс, чтобы популярные значения не шли подряд
+    static int[] shuffled(int n, SplittableRandom random) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        return values;
+    }
+}
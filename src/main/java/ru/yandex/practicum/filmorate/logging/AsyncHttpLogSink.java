@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.core.DefaultSink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Запись журнала HTTP-запросов Logbook в фоновом потоке.
+//В потоке запроса снимается только копия запроса и ответа (тела не длиннее max-body-size)
+//и кладётся в ограниченную очередь. Форматирует и пишет отдельный поток тем же форматтером и writer-ом Logbook,
+//поэтому формат журнала прежний. Если очередь заполнена, обмен не записывается и учитывается в счётчике отброшенных.
+//При async=false запись идёт в потоке запроса, как в Logbook по умолчанию
+@Slf4j
+@Component
+public class AsyncHttpLogSink implements Sink {
+
+    //сколько обменов поток записи забирает из очереди за раз
+    private static final int DRAIN_BATCH = 256;
+    //как долго поток записи ждёт новых обменов, прежде чем проверить остановку
+    private static final long POLL_TIMEOUT_MS = 100;
+    //предупреждение об отброшенных обменах - не чаще раза в 10 секунд
+    private static final long DROP_REPORT_INTERVAL_MS = 10_000;
+
+    private final Sink delegate;
+    private final boolean async;
+    private final int maxBodySize;
+    private final BlockingQueue<Exchange> queue;
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AsyncHttpLogSink(HttpLogFormatter formatter,
+                            HttpLogWriter writer,
+                            @Value("${filmorate.logging.http.async:true}") boolean async,
+                            @Value("${filmorate.logging.http.buffer-size:4096}") int bufferSize,
+                            @Value("${filmorate.logging.http.max-body-size:-1}") int maxBodySize) {
+        this.delegate = new DefaultSink(formatter, writer);
+        this.async = async;
+        this.maxBodySize = maxBodySize;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drain, "http-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Журнал HTTP-запросов пишется в фоне: очередь {}, тела до {} байт", queue.remainingCapacity(),
+                maxBodySize);
+    }
+
+    //Остановить поток записи, дописав то, что уже в очереди
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    //В фоновом режиме запрос записывается вместе с ответом
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) throws IOException {
+        if (!async) {
+            delegate.write(precorrelation, request);
+        }
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        if (async) {
+            enqueue(correlation, request, response);
+        } else {
+            delegate.write(correlation, request, response);
+        }
+    }
+
+    @Override
+    public void writeBoth(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        if (async) {
+            enqueue(correlation, request, response);
+        } else {
+            delegate.writeBoth(correlation, request, response);
+        }
+    }
+
+    //Количество обменов, не записанных из-за переполнения очереди
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void enqueue(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        // при заполненной очереди не тратим время на копирование
+        if (queue.remainingCapacity() == 0) {
+            dropped.increment();
+            return;
+        }
+        Exchange exchange = new Exchange(correlation, RequestSnapshot.of(request, maxBodySize),
+                ResponseSnapshot.of(response, maxBodySize));
+        if (!queue.offer(exchange)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<Exchange> batch = new ArrayList<>(DRAIN_BATCH);
+        long reportedDrops = 0;
+        long reportedAt = 0;
+        while (running) {
+            Exchange exchange;
+            try {
+                exchange = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (exchange != null) {
+                batch.add(exchange);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                writeAll(batch);
+            }
+            long drops = dropped.sum();
+            long now = System.currentTimeMillis();
+            if (drops > reportedDrops && now - reportedAt >= DROP_REPORT_INTERVAL_MS) {
+                log.warn("Журнал HTTP-запросов не успевает за нагрузкой: отброшено {} обменов", drops - reportedDrops);
+                reportedDrops = drops;
+                reportedAt = now;
+            }
+        }
+        queue.drainTo(batch);
+        writeAll(batch);
+    }
+
+    private void writeAll(List<Exchange> batch) {
+        for (Exchange exchange : batch) {
+            try {
+                delegate.writeBoth(exchange.correlation(), exchange.request(), exchange.response());
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Не удалось записать в журнал обмен {}: {}", exchange.correlation().getId(), ex.getMessage());
+            }
+        }
+        batch.clear();
+    }
+
+    private record Exchange(Correlation correlation, HttpRequest request, HttpResponse response) {
+    }
+}
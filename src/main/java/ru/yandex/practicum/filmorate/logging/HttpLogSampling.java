@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+//Выборочная запись HTTP-запросов в журнал: попадает доля sample-rate запросов (от 0 до 1).
+//Logbook проверяет условие до чтения тел, поэтому у пропущенных запросов тела не буферизуются.
+//Условие объединяется с путями из logbook.include и logbook.exclude
+@Component("requestCondition")
+public class HttpLogSampling implements Predicate<HttpRequest> {
+
+    private final double sampleRate;
+
+    public HttpLogSampling(@Value("${filmorate.logging.http.sample-rate:1.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//Обрезка тел запросов и ответов для журнала
+final class LogBodies {
+
+    //обрезанное тело уже не разбирается как JSON, поэтому форматтер получает его как текст
+    static final String TRUNCATED_CONTENT_TYPE = "text/plain";
+
+    private static final byte[] ELLIPSIS = "...".getBytes(StandardCharsets.UTF_8);
+
+    private LogBodies() {
+    }
+
+    //Тело длиннее maxBodySize байт (отрицательное значение - без ограничения)
+    static boolean exceeds(byte[] body, int maxBodySize) {
+        return maxBodySize >= 0 && body.length > maxBodySize;
+    }
+
+    //Первые maxBodySize байт тела и многоточие
+    static byte[] truncate(byte[] body, int maxBodySize) {
+        byte[] truncated = Arrays.copyOf(body, maxBodySize + ELLIPSIS.length);
+        System.arraycopy(ELLIPSIS, 0, truncated, maxBodySize, ELLIPSIS.length);
+        return truncated;
+    }
+}
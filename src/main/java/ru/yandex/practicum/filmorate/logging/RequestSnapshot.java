@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.zalando.logbook.HttpHeaders;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.Origin;
+import org.zalando.logbook.attributes.HttpAttributes;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Optional;
+
+//Копия запроса для записи в журнал после завершения обмена,
+//когда объекты запроса сервлета уже переиспользованы контейнером
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class RequestSnapshot implements HttpRequest {
+
+    private final String remote;
+    private final String method;
+    private final String scheme;
+    private final String host;
+    private final Optional<Integer> port;
+    private final String path;
+    private final String query;
+    private final String protocolVersion;
+    private final Origin origin;
+    private final HttpHeaders headers;
+    private final String contentType;
+    private final Charset charset;
+    private final HttpAttributes attributes;
+    private final byte[] body;
+
+    //Копия запроса с телом не длиннее maxBodySize байт (отрицательное значение - без ограничения)
+    static RequestSnapshot of(HttpRequest request, int maxBodySize) throws IOException {
+        byte[] body = request.getBody();
+        boolean truncated = LogBodies.exceeds(body, maxBodySize);
+        return new RequestSnapshot(request.getRemote(), request.getMethod(), request.getScheme(), request.getHost(),
+                request.getPort(), request.getPath(), request.getQuery(), request.getProtocolVersion(),
+                request.getOrigin(), request.getHeaders(),
+                truncated ? LogBodies.TRUNCATED_CONTENT_TYPE : request.getContentType(), request.getCharset(),
+                request.getAttributes(), truncated ? LogBodies.truncate(body, maxBodySize) : body);
+    }
+
+    @Override
+    public HttpRequest withBody() {
+        return this;
+    }
+
+    @Override
+    public HttpRequest withoutBody() {
+        return new RequestSnapshot(remote, method, scheme, host, port, path, query, protocolVersion, origin,
+                headers, contentType, charset, attributes, new byte[0]);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.zalando.logbook.HttpHeaders;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Origin;
+import org.zalando.logbook.attributes.HttpAttributes;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+//Копия ответа для записи в журнал после завершения обмена
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class ResponseSnapshot implements HttpResponse {
+
+    private final int status;
+    private final String reasonPhrase;
+    private final String protocolVersion;
+    private final Origin origin;
+    private final HttpHeaders headers;
+    private final String contentType;
+    private final Charset charset;
+    private final HttpAttributes attributes;
+    private final byte[] body;
+
+    //Копия ответа с телом не длиннее maxBodySize байт (отрицательное значение - без ограничения)
+    static ResponseSnapshot of(HttpResponse response, int maxBodySize) throws IOException {
+        byte[] body = response.getBody();
+        boolean truncated = LogBodies.exceeds(body, maxBodySize);
+        return new ResponseSnapshot(response.getStatus(), response.getReasonPhrase(), response.getProtocolVersion(),
+                response.getOrigin(), response.getHeaders(),
+                truncated ? LogBodies.TRUNCATED_CONTENT_TYPE : response.getContentType(), response.getCharset(),
+                response.getAttributes(), truncated ? LogBodies.truncate(body, maxBodySize) : body);
+    }
+
+    @Override
+    public HttpResponse withBody() {
+        return this;
+    }
+
+    @Override
+    public HttpResponse withoutBody() {
+        return new ResponseSnapshot(status, reasonPhrase, protocolVersion, origin, headers, contentType, charset,
+                attributes, new byte[0]);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.mappers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.memory.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmFields;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//Собирает FilmDto из строки таблицы films без лайков и жанров.
+//МРА рейтинг берётся из справочника в памяти, поэтому соединение с mpa_rating не нужно
+@Component
+@RequiredArgsConstructor
+public class FilmRowMapper implements RowMapper<FilmDto> {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    @Override
+    public FilmDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        FilmDto dto = new FilmDto();
+        dto.setId(rs.getInt("id"));
+        dto.setName(rs.getString("name"));
+        dto.setDescription(rs.getString("description"));
+        dto.setReleaseDate(rs.getDate("release_date").toLocalDate());
+        dto.setDuration(rs.getInt("duration"));
+        dto.setRate(rs.getInt("rate"));
+        dto.setVersion(rs.getLong("version"));
+
+        setMpa(dto, rs);
+        return dto;
+    }
+
+    //Маппер строк, в которых есть только id и колонки полей fields; остальные поля FilmDto остаются пустыми
+    public RowMapper<FilmDto> forFields(FilmFields fields) {
+        if (fields.isAll()) {
+            return this;
+        }
+        return (rs, rowNum) -> {
+            FilmDto dto = new FilmDto();
+            dto.setId(rs.getInt("id"));
+            if (fields.contains(FilmFields.Field.NAME)) {
+                dto.setName(rs.getString("name"));
+            }
+            if (fields.contains(FilmFields.Field.DESCRIPTION)) {
+                dto.setDescription(rs.getString("description"));
+            }
+            if (fields.contains(FilmFields.Field.RELEASE_DATE)) {
+                dto.setReleaseDate(rs.getDate("release_date").toLocalDate());
+            }
+            if (fields.contains(FilmFields.Field.DURATION)) {
+                dto.setDuration(rs.getInt("duration"));
+            }
+            if (fields.contains(FilmFields.Field.RATE)) {
+                dto.setRate(rs.getInt("rate"));
+            }
+            if (fields.contains(FilmFields.Field.MPA)) {
+                setMpa(dto, rs);
+            }
+            return dto;
+        };
+    }
+
+    private void setMpa(FilmDto dto, ResultSet rs) throws SQLException {
+        int mpaId = rs.getInt("mpa_rating_id");
+        dto.setMpa(rs.wasNull() ? null : referenceDataCache.getMpa(mpaId));
+    }
+}
@@ -18,6 +18,7 @@ public class UserDtoMapper implements RowMapper<UserDto> {
         user.setLogin(rs.getString("login"));
         user.setName(rs.getString("name"));
         user.setBirthday(rs.getDate("birthday").toLocalDate());
+        user.setVersion(rs.getLong("version"));
         return user;
     }
 
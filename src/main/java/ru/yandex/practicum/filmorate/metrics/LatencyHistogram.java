@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Гистограмма времени выполнения в наносекундах с количеством вызовов, суммой, максимумом и ошибками.
+//Корзины логарифмические: каждый интервал [2^k, 2^(k+1)) делится на 16 равных корзин,
+//поэтому квантиль завышается не больше чем на 1/16 своего значения.
+//Запись не выделяет память и не берёт блокировок - только атомарные инкременты,
+//чтобы замеры не искажали время на горячих путях. Значения накапливаются с момента старта
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    //значения от 2^40 нс (около 18 минут) попадают в последнюю корзину
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    //Учесть вызов длительностью nanos, failed - вызов завершился исключением
+    public void record(long nanos, boolean failed) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucket(Math.min(value, MAX_VALUE)));
+        sum.add(value);
+        if (failed) {
+            errors.increment();
+        }
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    //Согласованный снимок для выгрузки; количество вызовов считается по корзинам снимка
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sum.sum(), max.get(), errors.sum());
+    }
+
+    //значения меньше 16 нс лежат в своих корзинах, дальше - по 16 корзин на каждую степень двойки
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    //наибольшее значение, попадающее в корзину
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    public record Snapshot(long[] buckets, long count, long sumNanos, long maxNanos, long errors) {
+
+        //Значение квантиля quantile (от 0 до 1) в наносекундах: верхняя граница корзины,
+        //в которую попадает вызов с этим рангом, но не больше максимума
+        public long quantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+
+//Замер времени всех публичных методов репозиториев и всех обработчиков запросов в контроллерах.
+//Перехватчики добавляются к тем же прокси, что и @Transactional и @Validated, и стоят снаружи них,
+//поэтому в замер входят транзакция и проверка параметров.
+//Для выгрузки потоком (StreamingResponseBody) замеряется только подготовка ответа
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor repositoryMetricsAdvisor(MetricsRegistry metricsRegistry) {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationClassFilter(Repository.class))
+                .intersection(new StaticMethodMatcher() {
+                    @Override
+                    public boolean matches(Method method, Class<?> targetClass) {
+                        return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+                    }
+                });
+        return advisor(pointcut, timing(metricsRegistry::repositoryMethod));
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor endpointMetricsAdvisor(MetricsRegistry metricsRegistry) {
+        return advisor(new AnnotationMatchingPointcut(RestController.class, RequestMapping.class, true),
+                timing(metricsRegistry::endpoint));
+    }
+
+    private static Advisor advisor(Pointcut pointcut, MethodInterceptor interceptor) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    //Время вызова и признак ошибки записываются в гистограмму метода
+    private static MethodInterceptor timing(Function<Method, LatencyHistogram> histograms) {
+        return invocation -> {
+            LatencyHistogram histogram = histograms.apply(invocation.getMethod());
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invocation.proceed();
+                failed = false;
+                return result;
+            } finally {
+                histogram.record(System.nanoTime() - start, failed);
+            }
+        };
+    }
+}
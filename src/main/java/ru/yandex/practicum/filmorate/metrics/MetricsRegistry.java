@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+//Гистограммы времени выполнения методов репозиториев и обработчиков HTTP-запросов.
+//Ряд метрики создаётся при первом вызове метода, дальше гистограмма находится по Method
+//без выделения памяти. Перегруженные методы с одинаковыми метками пишут в общую гистограмму
+@Component
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final Family repositories = new Family("filmorate_repository_call",
+            "методов репозиториев", MetricsRegistry::repositoryLabels);
+    private final Family endpoints = new Family("filmorate_http_request",
+            "обработчиков HTTP-запросов", MetricsRegistry::endpointLabels);
+
+    //Гистограмма метода репозитория
+    public LatencyHistogram repositoryMethod(Method method) {
+        return repositories.histogram(method);
+    }
+
+    //Гистограмма метода контроллера
+    public LatencyHistogram endpoint(Method method) {
+        return endpoints.histogram(method);
+    }
+
+    public void writeTo(PrometheusWriter writer) {
+        repositories.writeTo(writer);
+        endpoints.writeTo(writer);
+    }
+
+    private static String repositoryLabels(Method method) {
+        return "repository=\"" + method.getDeclaringClass().getSimpleName() + "\",method=\"" + method.getName() + "\"";
+    }
+
+    //HTTP-метод и шаблон пути из @RequestMapping класса и метода, например GET /films/{id}
+    private static String endpointLabels(Method method) {
+        RequestMapping type = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), RequestMapping.class);
+        RequestMapping handler = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        String uri = firstPath(type) + firstPath(handler);
+        String httpMethod = handler == null || handler.method().length == 0 ? "ANY" : handler.method()[0].name();
+        return "method=\"" + httpMethod + "\",uri=\"" + (uri.isEmpty() ? "/" : uri) + "\"";
+    }
+
+    private static String firstPath(RequestMapping mapping) {
+        return mapping == null || mapping.path().length == 0 ? "" : mapping.path()[0];
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String subject;
+        private final Function<Method, String> labeler;
+        private final Map<Method, LatencyHistogram> byMethod = new ConcurrentHashMap<>();
+        private final Map<String, LatencyHistogram> byLabels = new ConcurrentHashMap<>();
+
+        private Family(String name, String subject, Function<Method, String> labeler) {
+            this.name = name;
+            this.subject = subject;
+            this.labeler = labeler;
+        }
+
+        private LatencyHistogram histogram(Method method) {
+            LatencyHistogram histogram = byMethod.get(method);
+            if (histogram == null) {
+                histogram = byLabels.computeIfAbsent(labeler.apply(method), labels -> new LatencyHistogram());
+                byMethod.put(method, histogram);
+            }
+            return histogram;
+        }
+
+        //Квантили, сумма и количество - summary, максимум и ошибки - отдельные метрики
+        private void writeTo(PrometheusWriter writer) {
+            Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+            byLabels.forEach((labels, histogram) -> snapshots.put(labels, histogram.snapshot()));
+
+            String seconds = name + "_seconds";
+            writer.family(seconds, "summary", "Время выполнения " + subject + " с момента старта");
+            snapshots.forEach((labels, snapshot) -> {
+                for (double quantile : QUANTILES) {
+                    writer.seconds(seconds, labels + ",quantile=\"" + quantile + "\"", snapshot.quantile(quantile));
+                }
+                writer.seconds(seconds + "_sum", labels, snapshot.sumNanos());
+                writer.sample(seconds + "_count", labels, snapshot.count());
+            });
+
+            writer.family(seconds + "_max", "gauge", "Наибольшее время выполнения " + subject);
+            snapshots.forEach((labels, snapshot) -> writer.seconds(seconds + "_max", labels, snapshot.maxNanos()));
+
+            writer.family(name + "_errors_total", "counter", "Количество вызовов " + subject + ", завершившихся исключением");
+            snapshots.forEach((labels, snapshot) -> writer.sample(name + "_errors_total", labels, snapshot.errors()));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+//Текстовый формат экспозиции Prometheus 0.0.4: для каждой метрики строки HELP и TYPE,
+//затем значения всех её рядов подряд
+public final class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    public PrometheusWriter family(String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    //labels - готовый список меток без фигурных скобок, может быть пустым
+    public PrometheusWriter sample(String name, String labels, long value) {
+        appendName(name, labels).append(value).append('\n');
+        return this;
+    }
+
+    public PrometheusWriter sample(String name, String labels, double value) {
+        appendName(name, labels).append(value).append('\n');
+        return this;
+    }
+
+    public PrometheusWriter seconds(String name, String labels, long nanos) {
+        return sample(name, labels, nanos / NANOS_PER_SECOND);
+    }
+
+    private StringBuilder appendName(String name, String labels) {
+        text.append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+        return text.append(' ');
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+}
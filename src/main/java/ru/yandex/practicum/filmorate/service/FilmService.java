@@ -2,18 +2,28 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dto.CursorPageDto;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmFields;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+import ru.yandex.practicum.filmorate.dto.LikeResultDto;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class FilmService {
     FilmRepository filmRepository;
 
+    //сколько фильмов читается из БД за один запрос при выгрузке каталога
+    @Value("${filmorate.films.export.fetch-size:500}")
+    private int exportFetchSize;
+
     @Autowired
     public FilmService(FilmRepository filmRepository) {
         this.filmRepository = filmRepository;
@@ -29,11 +39,31 @@ public class FilmService {
         filmRepository.deleteLike(userId, filmId);
     }
 
+    //страница лайков фильма после пользователя с id after
+    public CursorPageDto<Integer> getLikesPage(int filmId, int after, int limit) {
+        return filmRepository.getLikesPage(filmId, after, limit);
+    }
+
+    //поставить пакет лайков
+    public List<LikeResultDto> addLikes(List<LikeDto> likes) {
+        return filmRepository.addLikes(likes);
+    }
+
     //топ 10 фильмов (по кол-ву лайков)
     public List<FilmDto> getTopFilms(int limit) {
         return filmRepository.getTopFilms(limit);
     }
 
+    //топ фильмов только с полями fields
+    public List<FilmDto> getTopFilms(int limit, FilmFields fields) {
+        return filmRepository.getTopFilms(limit, fields);
+    }
+
+    //поиск фильмов по словам из названия и описания
+    public List<FilmDto> searchFilms(String query, int limit, FilmFields fields) {
+        return filmRepository.searchFilms(query, limit, fields);
+    }
+
     public void addFilm(Film film) {
         filmRepository.addFilm(film);
     }
@@ -46,7 +76,35 @@ public class FilmService {
         return filmRepository.getFilm(id);
     }
 
+    public FilmDto getFilm(int id, FilmFields fields) {
+        return filmRepository.getFilm(id, fields);
+    }
+
+    //ETag фильма по его версии
+    public String getFilmETag(int id) {
+        return filmRepository.getFilmETag(id);
+    }
+
     public List<FilmDto> getFilms() {
         return filmRepository.getFilms();
     }
+
+    public List<FilmDto> getFilms(FilmFields fields) {
+        return filmRepository.getFilms(fields);
+    }
+
+    //выгрузка всего каталога: каждый фильм передаётся в consumer сразу после чтения
+    public void exportFilms(Consumer<FilmDto> consumer) {
+        filmRepository.exportFilms(exportFetchSize, consumer);
+    }
+
+    //страница фильмов после фильма с id after
+    public CursorPageDto<FilmDto> getFilmsPage(int after, int limit) {
+        return filmRepository.getFilmsPage(after, limit);
+    }
+
+    //страница фильмов только с полями fields
+    public CursorPageDto<FilmDto> getFilmsPage(int after, int limit, FilmFields fields) {
+        return filmRepository.getFilmsPage(after, limit, fields);
+    }
 }
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.UserRepository;
+import ru.yandex.practicum.filmorate.dal.memory.CoLikeModel;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@Service
+public class RecommendationService {
+    CoLikeModel coLikeModel;
+    FilmRepository filmRepository;
+    UserRepository userRepository;
+
+    @Autowired
+    public RecommendationService(CoLikeModel coLikeModel, FilmRepository filmRepository, UserRepository userRepository) {
+        this.coLikeModel = coLikeModel;
+        this.filmRepository = filmRepository;
+        this.userRepository = userRepository;
+    }
+
+    //фильмы, которые лайкали вместе с данным
+    public List<FilmDto> getSimilarFilms(int filmId, int limit) {
+        log.info("Попытка получить {} фильмов, похожих на фильм {}", limit, filmId);
+        filmRepository.checkFilmExists(filmId);
+        int[] ids = coLikeModel.similarFilms(filmId, limit);
+        return filmRepository.getFilmsByIds(Arrays.stream(ids).boxed().toList());
+    }
+
+    //рекомендации пользователю по его лайкам
+    public List<FilmDto> getRecommendations(int userId, int limit) {
+        log.info("Попытка получить {} рекомендаций для пользователя {}", limit, userId);
+        userRepository.checkUserExists(userId);
+        int[] ids = coLikeModel.recommendFilms(userId, limit);
+        return filmRepository.getFilmsByIds(Arrays.stream(ids).boxed().toList());
+    }
+}
@@ -4,10 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dal.UserRepository;
+import ru.yandex.practicum.filmorate.dto.FriendSuggestionDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -42,6 +44,12 @@ public class UserService {
         return userRepository.getMutualFriends(firstId, secondId);
     }
 
+    //возможные друзья
+    public List<FriendSuggestionDto> getFriendSuggestions(int id, int limit) {
+        log.info("Попытка подобрать возможных друзей пользователя {}", id);
+        return userRepository.getFriendSuggestions(id, limit);
+    }
+
     public void addUser(User user) {
         log.info("Попытка добавить пользователя с id:{}", user.getId());
         userRepository.addUser(user);
@@ -61,4 +69,9 @@ public class UserService {
         log.info("Попытка получить всех пользователей");
         return userRepository.getUsers();
     }
+
+    public List<UserDto> getUsersByIds(List<Integer> ids) {
+        log.info("Попытка получить {} пользователей по списку id", ids.size());
+        return userRepository.getUsersByIds(ids.stream().filter(Objects::nonNull).mapToInt(Integer::intValue).toArray());
+    }
 }
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+//Отсортированный по возрастанию набор неотрицательных int без повторов, сжатый в массив байт.
+//Значения хранятся разностями с предыдущим в формате varint (7 бит на байт), поэтому списки близких id
+//занимают в среднем 1-2 байта на значение вместо 4. Значение больше последнего дописывается в конец,
+//остальные изменения пересобирают массив
+public class CompressedInts {
+
+    private byte[] data;
+    //занятая часть data
+    private int length;
+    private int size;
+    private int last;
+
+    public CompressedInts() {
+        data = new byte[4];
+    }
+
+    public void add(int value) {
+        checkValue(value);
+        if (size == 0 || value > last) {
+            append(size == 0 ? value : value - last);
+            last = value;
+            size++;
+            return;
+        }
+        int[] values = toArray();
+        int[] result = SortedInts.insert(values, value);
+        if (result != values) {
+            replace(result);
+        }
+    }
+
+    public void remove(int value) {
+        if (size == 0 || value > last) {
+            return;
+        }
+        int[] values = toArray();
+        int[] result = SortedInts.remove(values, value);
+        if (result != values) {
+            replace(result);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //Размер сжатых данных в байтах
+    public int byteSize() {
+        return length;
+    }
+
+    //Освободить запас массива, оставленный для дописывания
+    public void trim() {
+        if (data.length > length) {
+            data = Arrays.copyOf(data, Math.max(length, 1));
+        }
+    }
+
+    //Значения в массив точного размера
+    public int[] toArray() {
+        return decode(data, length, size);
+    }
+
+    //Сжать отсортированный массив без повторов в массив байт точного размера
+    public static byte[] encode(int[] values) {
+        CompressedInts result = new CompressedInts();
+        result.replace(values);
+        return Arrays.copyOf(result.data, result.length);
+    }
+
+    //Значения из массива, полученного encode
+    public static int[] decode(byte[] data) {
+        int count = 0;
+        for (byte b : data) {
+            if (b >= 0) {
+                count++;
+            }
+        }
+        return decode(data, data.length, count);
+    }
+
+    private static int[] decode(byte[] data, int length, int size) {
+        int[] values = new int[size];
+        int value = 0;
+        int pos = 0;
+        for (int i = 0; i < size; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0 && pos < length);
+            value = i == 0 ? delta : value + delta;
+            values[i] = value;
+        }
+        return values;
+    }
+
+    private void replace(int[] values) {
+        data = new byte[Math.max(values.length * 2, 4)];
+        length = 0;
+        size = 0;
+        for (int value : values) {
+            checkValue(value);
+            append(size == 0 ? value : value - last);
+            last = value;
+            size++;
+        }
+    }
+
+    private void append(int delta) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        }
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение не может быть отрицательным: " + value);
+        }
+    }
+}
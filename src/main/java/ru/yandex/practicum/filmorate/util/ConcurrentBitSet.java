@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Растущий битовый набор неотрицательных int для многопоточного доступа.
+//Чтение идёт без блокировок; установка битов и рост массива синхронизированы между собой,
+//поэтому бит, установленный во время роста, не теряется при копировании
+public class ConcurrentBitSet {
+
+    private volatile AtomicLongArray words;
+
+    public ConcurrentBitSet() {
+        this(64);
+    }
+
+    public ConcurrentBitSet(int capacity) {
+        words = new AtomicLongArray(Math.max(1, (capacity + 63) >>> 6));
+    }
+
+    public boolean get(int index) {
+        AtomicLongArray current = words;
+        int word = index >>> 6;
+        return index >= 0 && word < current.length() && (current.get(word) & (1L << index)) != 0;
+    }
+
+    public synchronized void set(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int word = index >>> 6;
+        AtomicLongArray current = words;
+        if (word >= current.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            words = grown;
+            current = grown;
+        }
+        long bit = 1L << index;
+        current.getAndUpdate(word, value -> value | bit);
+    }
+
+    //Количество установленных битов
+    public int cardinality() {
+        AtomicLongArray current = words;
+        int count = 0;
+        for (int i = 0; i < current.length(); i++) {
+            count += Long.bitCount(current.get(i));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.util;
+
+//Хеш-таблица int -> int с открытой адресацией без упаковки в Integer.
+//Ключи должны быть положительными: 0 обозначает свободную ячейку.
+//Ключ, значение которого стало 0, остаётся в таблице, forEach такие записи пропускает
+public class IntIntMap {
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntMap() {
+        this(8);
+    }
+
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 8)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    //Прибавить delta к значению ключа (отсутствующий ключ считается равным 0)
+    public void add(int key, int delta) {
+        int index = indexOf(keys, key);
+        if (keys[index] == 0) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+                index = indexOf(keys, key);
+            }
+            keys[index] = key;
+            size++;
+        }
+        values[index] += delta;
+    }
+
+    public int get(int key) {
+        int index = indexOf(keys, key);
+        return keys[index] == 0 ? 0 : values[index];
+    }
+
+    //Количество ключей, включая ключи с нулевым значением
+    public int size() {
+        return size;
+    }
+
+    //Обойти все записи с ненулевым значением
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && values[i] != 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            // записи с нулевым значением при перестроении выбрасываются
+            if (oldKeys[i] != 0 && oldValues[i] != 0) {
+                int index = indexOf(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    //Ячейка ключа или первая свободная ячейка на его пути (линейное пробирование)
+    private static int indexOf(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        while (keys[index] != 0 && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+//Растущий список int без упаковки в Integer.
+//asList() отдаёт неизменяемое представление для DTO: значения упаковываются только при чтении
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //Копия значений в массив точного размера
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    //Неизменяемое представление в виде List<Integer> без копирования
+    public List<Integer> asList() {
+        return new IntListView(values, size);
+    }
+
+    private static final class IntListView extends AbstractList<Integer> implements RandomAccess {
+        private final int[] values;
+        private final int size;
+
+        private IntListView(int[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
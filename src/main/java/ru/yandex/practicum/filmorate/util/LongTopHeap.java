@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+//Ограниченная куча для отбора N наибольших значений long.
+//Хранит не больше capacity значений, поэтому отбор из n значений стоит O(n log N) времени и O(N) памяти
+public class LongTopHeap {
+
+    //min-куча: в корне наименьшее из отобранных значений
+    private final long[] heap;
+    private int size;
+
+    public LongTopHeap(int capacity) {
+        heap = new long[capacity];
+    }
+
+    public void offer(long value) {
+        if (size < heap.length) {
+            heap[size] = value;
+            siftUp(size++);
+        } else if (size > 0 && value > heap[0]) {
+            heap[0] = value;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //Отобранные значения по убыванию
+    public long[] toSortedDescending() {
+        long[] result = Arrays.copyOf(heap, size);
+        Arrays.sort(result);
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            long tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    private void siftUp(int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private void siftDown(int index) {
+        long value = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+//Операции над отсортированными по возрастанию массивами int без повторов.
+//Массивы не изменяются: операции, меняющие состав, возвращают новый массив
+public final class SortedInts {
+
+    public static final int[] EMPTY = new int[0];
+
+    private SortedInts() {
+    }
+
+    public static boolean contains(int[] values, int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    //Массив с добавленным значением (тот же массив, если значение уже есть)
+    public static int[] insert(int[] values, int value) {
+        int pos = Arrays.binarySearch(values, value);
+        if (pos >= 0) {
+            return values;
+        }
+        pos = -pos - 1;
+        int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(values, pos, result, pos + 1, values.length - pos);
+        return result;
+    }
+
+    //Массив без значения (тот же массив, если значения нет)
+    public static int[] remove(int[] values, int value) {
+        int pos = Arrays.binarySearch(values, value);
+        if (pos < 0) {
+            return values;
+        }
+        int[] result = new int[values.length - 1];
+        System.arraycopy(values, 0, result, 0, pos);
+        System.arraycopy(values, pos + 1, result, pos, values.length - pos - 1);
+        return result;
+    }
+
+    //Объединение слиянием за O(n + m)
+    public static int[] union(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[k++] = b[j++];
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[k++] = a[i++];
+        }
+        while (j < b.length) {
+            result[k++] = b[j++];
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    //Пересечение слиянием за O(n + m)
+    public static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    //Значения a, которых нет в b, слиянием за O(n + m)
+    public static int[] difference(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length];
+        int j = 0;
+        int k = 0;
+        for (int value : a) {
+            while (j < b.length && b[j] < value) {
+                j++;
+            }
+            if (j == b.length || b[j] != value) {
+                result[k++] = value;
+            }
+        }
+        return k == result.length ? a : Arrays.copyOf(result, k);
+    }
+}
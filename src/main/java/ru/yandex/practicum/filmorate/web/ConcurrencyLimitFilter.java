@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//Ограничение количества одновременно обрабатываемых запросов.
+//На виртуальных потоках Tomcat не ограничивает количество обработчиков, и тысячи запросов
+//наперегонки забирают соединения из небольшого пула: каждый JdbcTemplate-вызов берёт соединение заново,
+//поэтому отдельные запросы ждут соединения десятки секунд. Справедливый семафор пропускает запросы
+//в порядке очереди; не дождавшиеся за queue-timeout получают 503. max-concurrent=0 отключает ограничение
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long queueTimeoutNanos;
+
+    public ConcurrencyLimitFilter(@Value("${filmorate.server.max-concurrent-requests:0}") int maxConcurrent,
+                                  @Value("${filmorate.server.queue-timeout:10s}") Duration queueTimeout) {
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        if (permits != null) {
+            log.info("Одновременно обрабатывается не больше {} запросов, ожидание в очереди до {}", maxConcurrent,
+                    queueTimeout);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (permits == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("Запрос {} {} не дождался обработки", request.getMethod(), request.getRequestURI());
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Сервер перегружен, повторите запрос позже");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
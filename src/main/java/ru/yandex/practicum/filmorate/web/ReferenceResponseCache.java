@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.memory.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.zip.GZIPOutputStream;
+
+//Готовые JSON-ответы для /genres, /genres/{id}, /mpa и /mpa/{id}.
+//Тела сериализуются один раз и хранятся массивами байт, при gzip=true рядом хранится сжатая копия,
+//если она меньше исходной. Ответы пересобираются, только когда меняется ETag справочника в ReferenceDataCache.
+//Сжатая копия отдаётся клиентам с Accept-Encoding: gzip и имеет свой ETag
+@Slf4j
+@Component
+public class ReferenceResponseCache {
+
+    private static final String GZIP = "gzip";
+
+    private final ReferenceDataCache referenceDataCache;
+    private final ObjectMapper objectMapper;
+    private final boolean gzip;
+
+    private volatile Responses genres;
+    private volatile Responses mpa;
+
+    public ReferenceResponseCache(ReferenceDataCache referenceDataCache,
+                                  ObjectMapper objectMapper,
+                                  @Value("${filmorate.reference.response-cache.gzip:true}") boolean gzip) {
+        this.referenceDataCache = referenceDataCache;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+    }
+
+    @PostConstruct
+    public void build() {
+        genres = buildGenres();
+        mpa = buildMpa();
+    }
+
+    //Ответ со списком жанров
+    public ResponseEntity<byte[]> getGenres(String acceptEncoding) {
+        return currentGenres().list().toResponse(acceptEncoding);
+    }
+
+    //Ответ с жанром или null, если такого жанра нет
+    public ResponseEntity<byte[]> getGenre(int id, String acceptEncoding) {
+        return toResponse(currentGenres().get(id), acceptEncoding);
+    }
+
+    //Ответ со списком МРА рейтингов
+    public ResponseEntity<byte[]> getAllMpa(String acceptEncoding) {
+        return currentMpa().list().toResponse(acceptEncoding);
+    }
+
+    //Ответ с МРА рейтингом или null, если такого рейтинга нет
+    public ResponseEntity<byte[]> getMpa(int id, String acceptEncoding) {
+        return toResponse(currentMpa().get(id), acceptEncoding);
+    }
+
+    private Responses currentGenres() {
+        Responses current = genres;
+        if (!current.eTag().equals(referenceDataCache.getGenresETag())) {
+            current = buildGenres();
+            genres = current;
+        }
+        return current;
+    }
+
+    private Responses currentMpa() {
+        Responses current = mpa;
+        if (!current.eTag().equals(referenceDataCache.getMpaETag())) {
+            current = buildMpa();
+            mpa = current;
+        }
+        return current;
+    }
+
+    private Responses buildGenres() {
+        // ETag читается до данных: если справочник перезагрузят в это время, ответы пересоберутся ещё раз
+        String eTag = referenceDataCache.getGenresETag();
+        Responses responses = build(eTag, referenceDataCache.getGenres(), Genre::getId);
+        log.info("Собраны ответы справочника жанров: {} байт", responses.list().json().length);
+        return responses;
+    }
+
+    private Responses buildMpa() {
+        String eTag = referenceDataCache.getMpaETag();
+        Responses responses = build(eTag, referenceDataCache.getAllMpa(), MpaRating::getId);
+        log.info("Собраны ответы справочника МРА рейтингов: {} байт", responses.list().json().length);
+        return responses;
+    }
+
+    private <T> Responses build(String eTag, List<T> items, ToIntFunction<T> id) {
+        int maxId = items.stream().mapToInt(id).max().orElse(-1);
+        Body[] byId = new Body[maxId + 1];
+        for (T item : items) {
+            byId[id.applyAsInt(item)] = body(item, eTag);
+        }
+        return new Responses(eTag, body(items, eTag), byId);
+    }
+
+    private Body body(Object value, String eTag) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Не удалось сериализовать справочник", ex);
+        }
+        byte[] compressed = gzip ? compress(json) : null;
+        return new Body(eTag, json, compressed != null && compressed.length < json.length ? compressed : null);
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private static ResponseEntity<byte[]> toResponse(Body body, String acceptEncoding) {
+        return body == null ? null : body.toResponse(acceptEncoding);
+    }
+
+    //Клиент принимает gzip: в Accept-Encoding есть gzip (или *) без q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase(GZIP) && !coding.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().replace(" ", "");
+                if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?")) {
+                    rejected = true;
+                }
+            }
+            return !rejected;
+        }
+        return false;
+    }
+
+    //готовое тело ответа: JSON и, если сжатие выгодно, его gzip-копия
+    private record Body(String eTag, byte[] json, byte[] gzip) {
+
+        ResponseEntity<byte[]> toResponse(String acceptEncoding) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip != null && acceptsGzip(acceptEncoding)) {
+                return response.eTag(eTag + "-" + GZIP)
+                        .header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                        .body(gzip);
+            }
+            return response.eTag(eTag).body(json);
+        }
+    }
+
+    //ответы одного справочника, собранные по одной версии
+    private record Responses(String eTag, Body list, Body[] byId) {
+
+        Body get(int id) {
+            return id >= 0 && id < byId.length ? byId[id] : null;
+        }
+    }
+}
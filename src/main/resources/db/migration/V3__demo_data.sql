@@ -0,0 +1,48 @@
+-- Демонстрационные данные: пользователи, фильмы, жанры фильмов, лайки и дружба
+INSERT INTO users (email, login, name, birthday) VALUES
+('user1@example.com', 'user1_login', 'User One', '1990-05-15'),
+('user2@example.com', 'user2_login', 'User Two', '1985-12-25'),
+('user3@example.com', 'user3_login', 'User Three', '1995-07-20'),
+('user4@example.com', 'user4_login', 'User Four', '2000-03-10'),
+('user5@example.com', 'user5_login', 'User Five', '1980-09-30');
+
+INSERT INTO user_friends (user_id, friend_id, friendship_type_id) VALUES
+(1, 2, 2), -- User One и User Two (дружба подтверждена)
+(1, 3, 1), -- User One и User Three (дружба не подтверждена)
+(2, 4, 2), -- User Two и User Four (дружба подтверждена)
+(3, 4, 1); -- User Two и User Four (дружба подтверждена)
+
+INSERT INTO films (name, description, release_date, duration, mpa_rating_id) VALUES
+('Фильм 1', 'Описание фильма 1', '2020-01-15', 120, 1), -- Рейтинг G
+('Фильм 2', 'Описание фильма 2', '2019-06-20', 95, 2),  -- Рейтинг PG
+('Фильм 3', 'Описание фильма 3', '2021-03-10', 150, 3), -- Рейтинг PG-13
+('Фильм 4', 'Описание фильма 4', '2018-11-05', 110, 4), -- Рейтинг R
+('Фильм 5', 'Описание фильма 5', '2022-07-25', 130, 5); -- Рейтинг NC-17
+
+INSERT INTO film_genres (film_id, genre_id) VALUES
+(1, 1), -- Фильм 1 связан с жанром "Комедия"
+(1, 2), -- Фильм 1 также связан с жанром "Драма"
+(2, 3), -- Фильм 2 связан с жанром "Мультфильм"
+(3, 4), -- Фильм 3 связан с жанром "Триллер"
+(4, 5), -- Фильм 4 связан с жанром "Документальный"
+(5, 6), -- Фильм 5 связан с жанром "Боевик"
+(5, 1); -- Фильм 5 также связан с жанром "Комедия"
+
+INSERT INTO film_likes (film_id, user_id) VALUES
+(1, 1), -- Пользователь 1 поставил лайк Фильму 1
+(1, 2), -- Пользователь 2 поставил лайк Фильму 1
+(1, 3), -- Пользователь 3 поставил лайк Фильму 1
+(1, 4), -- Пользователь 4 поставил лайк Фильму 1
+
+(2, 1), -- Пользователь 1 поставил лайк Фильму 2
+(2, 2), -- Пользователь 2 поставил лайк Фильму 2
+(2, 3), -- Пользователь 3 поставил лайк Фильму 2
+
+(3, 1), -- Пользователь 1 поставил лайк Фильму 3
+(3, 5), -- Пользователь 5 поставил лайк Фильму 3
+
+(4, 4), -- Пользователь 4 поставил лайк Фильму 4
+(5, 5); -- Пользователь 5 поставил лайк Фильму 5
+
+-- Рейтинг фильмов - количество лайков
+UPDATE films f SET rate = (SELECT COUNT(*) FROM film_likes l WHERE l.film_id = f.id);
@@ -0,0 +1,11 @@
+-- Лайки пользователя: поиск по user_id без просмотра всей film_likes
+CREATE INDEX IF NOT EXISTS film_likes_user_idx ON film_likes (user_id, film_id);
+
+-- Фильмы жанра
+CREATE INDEX IF NOT EXISTS film_genres_genre_idx ON film_genres (genre_id, film_id);
+
+-- Входящие запросы дружбы: поиск по friend_id (друзья пользователя и общие друзья)
+CREATE INDEX IF NOT EXISTS user_friends_friend_idx ON user_friends (friend_id, user_id, friendship_type_id);
+
+-- Популярные фильмы: сортировка по rate без сортировки всей таблицы
+CREATE INDEX IF NOT EXISTS films_rate_idx ON films (rate DESC, id);
@@ -0,0 +1,4 @@
+-- Версии фильмов и пользователей для ETag: увеличиваются при каждом изменении строки,
+-- лайков и жанров фильма
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.controller.Film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.films.likes-mode=count") // Лайки в ответах только количеством
+@AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
+@DisplayName("Тесты для проверки FilmController с лайками только количеством")
+public class FilmControllerLikesCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Фильмы без списка лайков, лайки - постранично")
+    void testGetFilm_LikesCount() throws Exception {
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1, 5))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Фильм 1"))
+                .andExpect(jsonPath("$.rate").value(5))
+                .andExpect(jsonPath("$.likes").doesNotExist())
+                .andExpect(jsonPath("$.genres.length()").value(2));
+        mockMvc.perform(get("/films/popular").param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].likes").doesNotExist());
+        mockMvc.perform(get("/films/{id}", 1).param("fields", "id,likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.likes").doesNotExist());
+
+        mockMvc.perform(get("/films/{id}/likes", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(5));
+    }
+}
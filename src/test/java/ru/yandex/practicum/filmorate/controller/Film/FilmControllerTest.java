@@ -9,22 +9,36 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest // Загружает полный контекст приложения
 @AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
-@Sql(scripts = "/schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD) // Создание таблиц
-@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)   // Загрузка данных
 @DisplayName("Тесты для проверки FilmController")
 public class FilmControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private FilmRepository filmRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     @DisplayName("Получение одного фильма по ID. Успешно")
     void testGetFilmById_Success() throws Exception {
@@ -64,6 +78,62 @@ public class FilmControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    @DisplayName("Получение страницы фильмов. Успешно")
+    void testGetFilmsPage_Success() throws Exception {
+        mockMvc.perform(get("/films")
+                        .param("after", "1")
+                        .param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].name").value("Фильм 2"))
+                .andExpect(jsonPath("$.items[1].name").value("Фильм 3"))
+                .andExpect(jsonPath("$.nextCursor").value(3));
+    }
+
+    @Test
+    @DisplayName("Получение последней страницы фильмов. Курсор отсутствует")
+    void testGetFilmsPage_LastPage() throws Exception {
+        mockMvc.perform(get("/films")
+                        .param("after", "3")
+                        .param("limit", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].likes.length()").value(1))
+                .andExpect(jsonPath("$.items[1].genres.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Получение страницы фильмов. Некорректный параметр limit")
+    void testGetFilmsPage_InvalidLimit() throws Exception {
+        mockMvc.perform(get("/films")
+                        .param("limit", "0")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Параметр limit не может быть меньше 1"));
+    }
+
+    @Test
+    @DisplayName("Выгрузка каталога в формате NDJSON. Успешно")
+    void testExportFilms_Success() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Фильм 1\""));
+        assertTrue(lines[4].contains("\"name\":\"Фильм 5\""));
+    }
+
     @Test
     @DisplayName("Добавить лайк. Успешно")
     void testAddLike_Success() throws Exception {
@@ -73,6 +143,116 @@ public class FilmControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Получение фильма после лайка. Кеш сброшен")
+    void testGetFilmById_AfterLike() throws Exception {
+        // Первый запрос кладёт фильм в кеш
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes.length()").value(4));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1, 5))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes.length()").value(5))
+                .andExpect(jsonPath("$.rate").value(5));
+
+        mockMvc.perform(delete("/films/{id}/like/{userId}", 1, 1))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes.length()").value(4))
+                .andExpect(jsonPath("$.rate").value(4));
+    }
+
+    @Test
+    @DisplayName("Условное получение фильма по ETag")
+    void testGetFilmById_NotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/films/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // лайк меняет версию фильма
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1, 5))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes.length()").value(5));
+    }
+
+    @Test
+    @DisplayName("Получение фильмов только с запрошенными полями")
+    void testGetFilms_Fields() throws Exception {
+        mockMvc.perform(get("/films").param("limit", "2").param("fields", "id,name,rate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Фильм 1"))
+                .andExpect(jsonPath("$.items[0].rate").exists())
+                .andExpect(jsonPath("$.items[0].likes").doesNotExist())
+                .andExpect(jsonPath("$.items[0].genres").doesNotExist())
+                .andExpect(jsonPath("$.items[0].mpa").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(2));
+
+        mockMvc.perform(get("/films/{id}", 1).param("fields", "name,genres"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.name").value("Фильм 1"))
+                .andExpect(jsonPath("$.genres.length()").value(2))
+                .andExpect(jsonPath("$.likes").doesNotExist());
+
+        mockMvc.perform(get("/films/popular").param("count", "1").param("fields", "id,likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].likes.length()").value(4))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+
+        // без fields фильм возвращается целиком
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mpa.id").value(1))
+                .andExpect(jsonPath("$.likes.length()").value(4));
+    }
+
+    @Test
+    @DisplayName("Получение фильма с неизвестным полем")
+    void testGetFilm_UnknownField() throws Exception {
+        mockMvc.perform(get("/films/{id}", 1).param("fields", "id,title"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Неизвестное поле фильма: title"));
+    }
+
+    @Test
+    @DisplayName("Постраничное получение лайков фильма")
+    void testGetLikes_Pages() throws Exception {
+        mockMvc.perform(get("/films/{id}/likes", 1).param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0]").value(1))
+                .andExpect(jsonPath("$.items[2]").value(3))
+                .andExpect(jsonPath("$.nextCursor").value(3));
+
+        mockMvc.perform(get("/films/{id}/likes", 1).param("after", "3").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0]").value(4))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Постраничное получение лайков. Фильм не найден")
+    void testGetLikes_FilmNotFound() throws Exception {
+        mockMvc.perform(get("/films/{id}/likes", 999))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Добавить лайк. Фильм не найден")
     void testAddLike_FilmNotFound() throws Exception {
@@ -102,6 +282,20 @@ public class FilmControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Удалить несуществующий лайк. Рейтинг не меняется")
+    void testDeleteLike_NotLiked() throws Exception {
+        mockMvc.perform(put("/films/{id}/like/{userId}", 4, 1))
+                .andExpect(status().isOk());
+        // пользователь 2 не ставил лайк фильму 4
+        mockMvc.perform(delete("/films/{id}/like/{userId}", 4, 2))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/{id}", 4))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(2));
+    }
+
     @Test
     @DisplayName("Удалить лайк. Фильм не найден")
     void testDeleteLike_FilmNotFound() throws Exception {
@@ -120,6 +314,64 @@ public class FilmControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Пакетное добавление лайков. Результат по каждому лайку")
+    void testAddLikesBatch() throws Exception {
+        String body = "[{\"filmId\":5,\"userId\":1}," +
+                "{\"filmId\":5,\"userId\":2}," +
+                "{\"filmId\":5,\"userId\":1}," +
+                "{\"filmId\":1,\"userId\":1}," +
+                "{\"filmId\":999,\"userId\":1}," +
+                "{\"filmId\":5,\"userId\":999}]";
+
+        mockMvc.perform(post("/films/likes:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(jsonPath("$[0].status").value("ADDED"))
+                .andExpect(jsonPath("$[1].status").value("ADDED"))
+                .andExpect(jsonPath("$[2].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$[3].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$[4].status").value("FILM_NOT_FOUND"))
+                .andExpect(jsonPath("$[5].status").value("USER_NOT_FOUND"));
+
+        mockMvc.perform(get("/films/{id}", 5)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(3))
+                .andExpect(jsonPath("$.likes.length()").value(3));
+    }
+
+    @Test
+    @DisplayName("Пакет лайков. Слишком большой пакет")
+    void testAddLikesBatch_TooLarge() throws Exception {
+        String body = "[" + String.join(",", Collections.nCopies(1001, "{\"filmId\":5,\"userId\":1}")) + "]";
+
+        mockMvc.perform(post("/films/likes:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Пакет не может содержать больше 1000 лайков"));
+    }
+
+    @Test
+    @DisplayName("Пакет лайков. Откат транзакции не меняет популярные фильмы")
+    void testAddLikesBatch_RolledBack() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            filmRepository.addLikes(List.of(new LikeDto(5, 1), new LikeDto(5, 2), new LikeDto(5, 3),
+                    new LikeDto(5, 4), new LikeDto(5, 6)));
+            status.setRollbackOnly();
+        });
+
+        mockMvc.perform(get("/films/popular").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+        mockMvc.perform(get("/films/{id}", 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes.length()").value(1));
+    }
+
     @Test
     @DisplayName("Получение популярных фильмов. Успешно")
     void testGetPopularFilms_Success() throws Exception {
@@ -131,6 +383,25 @@ public class FilmControllerTest {
                 .andExpect(jsonPath("$[1].name").value("Фильм 2"));
     }
 
+    @Test
+    @DisplayName("Получение популярных фильмов. Учитываются новые лайки")
+    void testGetPopularFilms_AfterLikes() throws Exception {
+        for (int userId = 1; userId <= 4; userId++) {
+            mockMvc.perform(put("/films/{id}/like/{userId}", 5, userId)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/films/popular")
+                        .param("count", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Фильм 5"))
+                .andExpect(jsonPath("$[0].rate").value(5))
+                .andExpect(jsonPath("$[1].name").value("Фильм 1"));
+    }
+
     @Test
     @DisplayName("Получение популярных фильмов. Некорректный параметр count)")
     void testGetPopularFilms_InvalidCount() throws Exception {
@@ -141,4 +412,85 @@ public class FilmControllerTest {
                 .andExpect(jsonPath("$.message").value("Параметр count не может быть меньше 1"));
     }
 
+
+    @Test
+    @DisplayName("Поиск фильмов по названию и описанию")
+    void testSearchFilms_Success() throws Exception {
+        // все слова запроса должны найтись, короткие слова ищутся целиком
+        mockMvc.perform(get("/films/search").param("q", "Фильм 3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+        // слово от трёх символов ищется и как часть слова, регистр не важен
+        mockMvc.perform(get("/films/search").param("q", "ПИСАН").param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+
+        // совпадение в названии весит больше, чем в описании, «ё» совпадает с «е»
+        mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Новое описаниё\", \"description\": \"Без слов\", "
+                                + "\"releaseDate\": \"2020-01-01\", \"duration\": 90, \"mpa\": {\"id\": 1}}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/search").param("q", "описание").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(6));
+    }
+
+    @Test
+    @DisplayName("Поиск фильмов. Учитывается обновление фильма")
+    void testSearchFilms_AfterUpdate() throws Exception {
+        mockMvc.perform(put("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": 2, \"name\": \"Переименованный\", \"description\": \"Другой текст\", "
+                                + "\"releaseDate\": \"2019-06-20\", \"duration\": 95, \"mpa\": {\"id\": 2}}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/search").param("q", "переименован"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+        mockMvc.perform(get("/films/search").param("q", "фильм 2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @DisplayName("Поиск фильмов. Пустой запрос")
+    void testSearchFilms_BlankQuery() throws Exception {
+        mockMvc.perform(get("/films/search").param("q", " "))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Параметр q не может быть пустым"));
+    }
+
+    @Test
+    @DisplayName("Рекомендации к фильму по совместным лайкам")
+    void testGetSimilarFilms_Success() throws Exception {
+        // Фильм 2 лайкнули пользователи 1, 2 и 3: все они лайкнули Фильм 1, пользователь 1 - ещё и Фильм 3
+        mockMvc.perform(get("/films/{id}/recommendations", 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(3));
+
+        // Пользователь 5 лайкает Фильм 2: у Фильма 3 становится два совместных лайка, появляется Фильм 5
+        mockMvc.perform(put("/films/{id}/like/{userId}", 2, 5))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/{id}/recommendations", 2).param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(3))
+                .andExpect(jsonPath("$[2].id").value(5));
+    }
+
+    @Test
+    @DisplayName("Рекомендации к фильму. Фильм не найден")
+    void testGetSimilarFilms_NotFound() throws Exception {
+        mockMvc.perform(get("/films/{id}/recommendations", 999))
+                .andExpect(status().isNotFound());
+    }
 }
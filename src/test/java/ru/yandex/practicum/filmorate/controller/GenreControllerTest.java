@@ -10,16 +10,23 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.dal.memory.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest // Загружает полный контекст приложения
 @AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
-@Sql(scripts = "/schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD) // Создание таблиц
-@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)   // Загрузка данных
 @DisplayName("Тесты для проверки GenreController")
 public class GenreControllerTest {
 
@@ -29,6 +36,9 @@ public class GenreControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     @Test
     @DisplayName("Получение жанра по ID. Успешно")
     void testGetGenre_Success() throws Exception {
@@ -39,6 +49,43 @@ public class GenreControllerTest {
                 .andExpect(jsonPath("$.name").value("Комедия"));
     }
 
+    @Test
+    @DisplayName("Условное получение жанров по ETag")
+    void testGetGenres_NotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/genres").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/genres/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Сжатый ответ со списком жанров")
+    void testGetGenres_Gzip() throws Exception {
+        byte[] compressed = mockMvc.perform(get("/genres").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            Genre[] genres = objectMapper.readValue(in.readAllBytes(), Genre[].class);
+            assertEquals(6, genres.length);
+            assertEquals("Комедия", genres[0].getName());
+        }
+
+        // без gzip в Accept-Encoding отдаётся обычный JSON
+        mockMvc.perform(get("/genres").header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].name").value("Комедия"));
+    }
+
     @Test
     @DisplayName("Получение жанра по ID. Жанр не найден")
     void testGetGenre_NotFound() throws Exception {
@@ -62,6 +109,9 @@ public class GenreControllerTest {
     @Sql(scripts = "/cleanup.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
     @DisplayName("Получение фильмов с жанрами. База данных пуста")
     void testGetFilmsWithGenre_EmptyDatabase() throws Exception {
+        // Справочники загружаются в память при старте, после очистки БД их нужно перезагрузить
+        referenceDataCache.reload();
+
         mockMvc.perform(get("/genres")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
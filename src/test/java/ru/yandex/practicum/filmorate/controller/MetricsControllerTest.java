@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest // Загружает полный контекст приложения
+@AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
+@DisplayName("Тесты для проверки MetricsController")
+public class MetricsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Метрики запросов и репозиториев в формате Prometheus")
+    void testGetMetrics_Success() throws Exception {
+        mockMvc.perform(get("/users/{id}", 1)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", 2)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", 999)).andExpect(status().isNotFound());
+
+        String endpoint = "{method=\"GET\",uri=\"/users/{id}\"}";
+        mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andExpect(content().string(containsString("# TYPE filmorate_http_request_seconds summary\n")))
+                .andExpect(content().string(containsString("filmorate_http_request_seconds_count" + endpoint + " 3\n")))
+                .andExpect(content().string(containsString("filmorate_http_request_errors_total" + endpoint + " 1\n")))
+                .andExpect(content().string(containsString(
+                        "filmorate_http_request_seconds{method=\"GET\",uri=\"/users/{id}\",quantile=\"0.99\"} ")))
+                .andExpect(content().string(containsString(
+                        "filmorate_repository_call_seconds_count{repository=\"UserRepository\",method=\"getUser\"} ")))
+                .andExpect(content().string(containsString("filmorate_film_cache_requests_total{result=\"hit\"} 0\n")));
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.dal.memory.ReferenceDataCache;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -18,8 +19,6 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest // Загружает полный контекст приложения
 @AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
-@Sql(scripts = "/schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD) // Создание таблиц
-@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)   // Загрузка данных
 @DisplayName("Тесты для проверки MpaController")
 public class MpaControllerTest {
 
@@ -29,6 +28,9 @@ public class MpaControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     @Test
     @DisplayName("Получение MPA по ID. Успешно")
     void testGetMpaById_Success() throws Exception {
@@ -63,6 +65,9 @@ public class MpaControllerTest {
     @Sql(scripts = "/cleanup.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
     @DisplayName("Получение фильмов с MPA . База данных пуста")
     void testGetFilmsWithMpa_EmptyDatabase() throws Exception {
+        // Справочники загружаются в память при старте, после очистки БД их нужно перезагрузить
+        referenceDataCache.reload();
+
         mockMvc.perform(get("/mpa")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
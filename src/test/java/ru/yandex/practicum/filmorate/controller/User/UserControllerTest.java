@@ -12,14 +12,13 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest // Загружает полный контекст приложения
 @AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
-@Sql(scripts = "/schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD) // Создание таблиц
-@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)   // Загрузка данных
 @DisplayName("Тесты для проверки UserController")
 public class UserControllerTest {
     @Autowired
@@ -39,6 +38,27 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.login").value("user1_login"));
     }
 
+    @Test
+    @DisplayName("Условное получение пользователя по ETag")
+    void testGetUser_NotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/users/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/users/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        // после обновления версия пользователя меняется
+        String user = "{\"id\":1,\"email\":\"new@example.com\",\"login\":\"user1_login\","
+                + "\"name\":\"User One\",\"birthday\":\"1990-05-15\"}";
+        mockMvc.perform(put("/users").contentType(MediaType.APPLICATION_JSON).content(user))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("new@example.com"));
+    }
+
     @Test
     @DisplayName("Получение пользователя. Пользователь не найден")
     void testGetUser_NotFound() throws Exception {
@@ -68,6 +88,17 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    @DisplayName("Получение пользователей по списку id. Успешно")
+    void testGetUsersByIds_Success() throws Exception {
+        // Порядок ответа совпадает с порядком id, несуществующие id и повторы пропускаются
+        mockMvc.perform(get("/users").param("ids", "4,999,2,4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].email").value("user4@example.com"))
+                .andExpect(jsonPath("$[1].email").value("user2@example.com"));
+    }
+
     @Test
     @DisplayName("Добавление в друзья. Успешно")
     void testAddFriend_Success() throws Exception {
@@ -76,6 +107,23 @@ public class UserControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Добавление в друзья только что созданного пользователя")
+    void testAddFriend_NewUser() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"new@example.com\",\"login\":\"new_login\",\"name\":\"New\","
+                                + "\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(6));
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1, 6))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1, 7))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Пользователь с ID 7 не найден"));
+    }
+
     @Test
     @DisplayName("Добавление в друзья. Пользователь не найден")
     void testAddFriend_UserNotFound() throws Exception {
@@ -128,6 +176,32 @@ public class UserControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Получение всех друзей после запроса и подтверждения дружбы")
+    void testGetFriends_AfterAddAndConfirm() throws Exception {
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 5, 1))
+                .andExpect(status().isOk());
+        // Неподтверждённый запрос виден только у отправителя
+        mockMvc.perform(get("/users/{id}/friends", 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1));
+        mockMvc.perform(get("/users/{id}/friends", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 1, 5))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}/friends", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].id").value(5));
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", 2, 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
     @Test
     @DisplayName("Получение всех друзей. У пользователя нет друзей")
     void testGetFriends_NoFriends() throws Exception {
@@ -137,6 +211,20 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    @DisplayName("Получение возможных друзей. Успешно")
+    void testGetFriendSuggestions_Success() throws Exception {
+        // У пользователей 1 и 4 два общих друга (2 и 3), при этом сами они не связаны
+        mockMvc.perform(get("/users/{id}/friends/suggestions", 1).param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].user.id").value(4))
+                .andExpect(jsonPath("$[0].mutualFriends").value(2));
+        mockMvc.perform(get("/users/{id}/friends/suggestions", 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
     @Test
     @DisplayName("Получение общих друзей. Успешно")
     void testGetMutualFriends_Success() throws Exception {
@@ -154,4 +242,15 @@ public class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty());
     }
+
+    @Test
+    @DisplayName("Рекомендации фильмов пользователю. Успешно")
+    void testGetRecommendations_Success() throws Exception {
+        // Пользователь 2 лайкнул Фильмы 1 и 2; Фильм 3 лайкали вместе с обоими, Фильм 4 - только с Фильмом 1
+        mockMvc.perform(get("/users/{id}/recommendations", 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(4));
+    }
 }
@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.dal.memory.FilmCache;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Запись по интервалу, при остановке и после ошибки проверяется на отдельных экземплярах агрегатора,
+//чтобы не зависеть от расписания бина из контекста
+@SpringBootTest(properties = {
+        "filmorate.films.rate-write-behind.enabled=true",
+        "filmorate.films.rate-write-behind.flush-interval=1h",
+        "filmorate.films.rate-write-behind.flush-threshold=3"
+})
+@AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
+@DisplayName("Отложенная запись рейтинга фильмов")
+public class FilmRateAggregatorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmRateAggregator rateAggregator;
+
+    @Autowired
+    private FilmCache filmCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Изменения записываются при накоплении flush-threshold изменений")
+    void testFlush_OnThreshold() throws Exception {
+        int rate = getRate(2);
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 2, 4)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1, 5)).andExpect(status().isOk());
+        // двух изменений мало для записи, а интервал - час
+        assertEquals(rate, getRate(2));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 2, 5)).andExpect(status().isOk());
+        awaitRate(2, rate + 2);
+        assertEquals(rate + 2, getRate(2));
+        mockMvc.perform(get("/films/{id}", 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(rate + 2));
+    }
+
+    @Test
+    @DisplayName("Фильм сразу после лайка отдаётся с рейтингом, который учитывает лайк")
+    void testGetFilm_RateBeforeFlush() throws Exception {
+        int rate = getRate(4);
+        mockMvc.perform(get("/films/{id}", 4)).andExpect(status().isOk());
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 4, 1)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", 4, 2)).andExpect(status().isOk());
+
+        // в БД рейтинг ещё не записан
+        assertEquals(rate, getRate(4));
+        mockMvc.perform(get("/films/{id}", 4))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes.length()").value(rate + 2))
+                .andExpect(jsonPath("$.rate").value(rate + 2));
+        mockMvc.perform(get("/films/{id}", 4).param("fields", "id,rate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(rate + 2));
+        // популярные фильмы упорядочены и показаны по одному и тому же рейтингу
+        mockMvc.perform(get("/films/popular").param("count", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2))
+                .andExpect(jsonPath("$[1].rate").value(3))
+                .andExpect(jsonPath("$[2].id").value(4))
+                .andExpect(jsonPath("$[2].rate").value(rate + 2));
+    }
+
+    @Test
+    @DisplayName("Изменения записываются раз в flush-interval")
+    void testFlush_OnInterval() throws Exception {
+        FilmRateAggregator aggregator = new FilmRateAggregator(jdbcTemplate, filmCache, true,
+                Duration.ofMillis(50), 1000);
+        aggregator.start();
+        try {
+            int rate = getRate(3);
+            aggregator.add(3, 1);
+            aggregator.add(3, 1);
+
+            awaitRate(3, rate + 2);
+            assertEquals(rate + 2, getRate(3));
+        } finally {
+            aggregator.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Накопленные изменения записываются при остановке")
+    void testFlush_OnShutdown() throws Exception {
+        FilmRateAggregator aggregator = new FilmRateAggregator(jdbcTemplate, filmCache, true,
+                Duration.ofHours(1), 1000);
+        aggregator.start();
+        int rate = getRate(3);
+        int otherRate = getRate(4);
+        aggregator.add(3, 1);
+        aggregator.add(4, 1);
+        assertEquals(rate, getRate(3));
+
+        aggregator.stop();
+
+        assertEquals(rate + 1, getRate(3));
+        assertEquals(otherRate + 1, getRate(4));
+    }
+
+    @Test
+    @DisplayName("Изменения неудачной записи возвращаются и записываются следующей")
+    void testFlush_RequeuedAfterFailure() throws Exception {
+        JdbcTemplate failingOnce = spy(jdbcTemplate);
+        doThrow(new DataAccessResourceFailureException("БД недоступна"))
+                .doCallRealMethod()
+                .when(failingOnce).batchUpdate(anyString(), anyList());
+        FilmRateAggregator aggregator = new FilmRateAggregator(failingOnce, filmCache, true,
+                Duration.ofHours(1), 1000);
+        aggregator.start();
+        try {
+            int rate = getRate(3);
+            aggregator.add(3, 2);
+
+            aggregator.flush();
+            assertEquals(rate, getRate(3));
+            aggregator.add(3, 1);
+            aggregator.flush();
+
+            assertEquals(rate + 3, getRate(3));
+        } finally {
+            aggregator.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Отброшенные изменения фильма не записываются")
+    void testDiscard() {
+        int rate = getRate(3);
+        int otherRate = getRate(4);
+        rateAggregator.add(3, 1);
+        rateAggregator.add(4, 1);
+
+        rateAggregator.discard(3);
+        rateAggregator.flush();
+
+        assertEquals(rate, getRate(3));
+        assertEquals(otherRate + 1, getRate(4));
+        // счётчик изменений discard не сбрасывает: по нему сравниваются версии фильма
+        assertEquals(1, rateAggregator.getChangeCount(3));
+    }
+
+    private int getRate(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT rate FROM films WHERE id = ?", Integer.class, filmId);
+    }
+
+    private void awaitRate(int filmId, int rate) throws InterruptedException {
+        for (int i = 0; i < 100 && getRate(filmId) != rate; i++) {
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.dal.memory.CoLikeModel;
+import ru.yandex.practicum.filmorate.dal.memory.FilmCache;
+import ru.yandex.practicum.filmorate.dal.memory.PopularityIndex;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest // Загружает полный контекст приложения
+@AutoConfigureMockMvc // Настройка MockMvc для тестирования контроллеров
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Очищает контекст после каждого теста
+@DisplayName("Журнал лайков с групповой фиксацией")
+public class LikeJournalTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LikeJournal likeJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LikesRepository likesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CoLikeModel coLikeModel;
+
+    @Autowired
+    private PopularityIndex popularityIndex;
+
+    @Autowired
+    private FilmCache filmCache;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("filmorate.likes.journal.enabled", () -> true);
+        registry.add("filmorate.likes.journal.directory", () -> journalDirectory.toString());
+    }
+
+    @Test
+    @DisplayName("Лайки из журнала попадают в film_likes и рейтинг фильма")
+    void testAddAndRemoveLike_Applied() throws Exception {
+        int rate = jdbcTemplate.queryForObject("SELECT rate FROM films WHERE id = 1", Integer.class);
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1, 5)).andExpect(status().isOk());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", 1, 1)).andExpect(status().isOk());
+        // повторный лайк и снятие несуществующего лайка рейтинг не меняют
+        mockMvc.perform(put("/films/{id}/like/{userId}", 1, 5)).andExpect(status().isOk());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", 2, 5)).andExpect(status().isOk());
+        awaitApplied();
+
+        assertEquals(rate, jdbcTemplate.queryForObject("SELECT rate FROM films WHERE id = 1", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM film_likes WHERE film_id = 1 AND user_id = 5", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM film_likes WHERE film_id = 1 AND user_id = 1", Integer.class));
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes.length()").value(4));
+    }
+
+    @Test
+    @DisplayName("Лайк несуществующему фильму отклоняется до записи в журнал")
+    void testAddLike_FilmNotFound() throws Exception {
+        mockMvc.perform(put("/films/{id}/like/{userId}", 999, 1)).andExpect(status().isNotFound());
+        assertEquals(0, likeJournal.getLag());
+    }
+
+    @Test
+    @DisplayName("При повторе журнала обрывок записи пропускается, следующие целые записи применяются")
+    void testReplay_TornRecordFollowedByValidRecords() throws Exception {
+        int rate = jdbcTemplate.queryForObject("SELECT rate FROM films WHERE id = 2", Integer.class);
+        likeJournal.stop();
+        ByteBuffer torn = record(1, 3, 4);
+        ByteBuffer segment = ByteBuffer.allocate(4 * 13 + 6);
+        segment.put(record(1, 2, 4));
+        // запись, оборванная на шестом байте
+        segment.put(torn.array(), 0, 6);
+        segment.put(record(1, 2, 5));
+        segment.put(record(2, 2, 1));
+        segment.put(record(1, 4, 5));
+        Files.write(journalDirectory.resolve("likes-0-00000000000000000000.log"), segment.array());
+
+        likeJournal.start();
+
+        assertEquals(0, likeJournal.getLag());
+        assertEquals(List.of(2, 3, 4, 5), jdbcTemplate.queryForList(
+                "SELECT user_id FROM film_likes WHERE film_id = 2 ORDER BY user_id", Integer.class));
+        // два добавленных лайка и одно снятие
+        assertEquals(rate + 1, jdbcTemplate.queryForObject("SELECT rate FROM films WHERE id = 2", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM film_likes WHERE film_id = 3 AND user_id = 4", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM film_likes WHERE film_id = 4 AND user_id = 5", Integer.class));
+        try (var files = Files.list(journalDirectory)) {
+            // повторённый сегмент удалён, остался только новый пустой
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Ошибка удаления применённого сегмента не останавливает применение, удаление повторяется")
+    void testApply_SegmentDeleteFailureRetried(@TempDir Path directory) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        JdbcTemplate blocking = spy(jdbcTemplate);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(blocking).batchUpdate(anyString(), anyList());
+        // сегмент по одной записи: после каждого лайка сегмент закрывается
+        LikeJournal journal = new LikeJournal(likesRepository, blocking, transactionManager, coLikeModel,
+                popularityIndex, filmCache, true, directory, 13, 5000);
+        journal.start();
+        try {
+            journal.addLike(5, 1);
+            List<Path> segments = awaitSegments(directory, 2);
+            Path closed = segments.get(0);
+            // пока пакет применяется, на месте сегмента оказывается непустой каталог, который не удалить
+            Files.delete(closed);
+            Files.createDirectory(closed);
+            Files.createFile(closed.resolve("busy"));
+            release.countDown();
+            awaitLag(journal);
+
+            journal.addLike(5, 2);
+            awaitLag(journal);
+            assertEquals(2, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM film_likes WHERE film_id = 5 AND user_id IN (1, 2)", Integer.class));
+
+            Files.delete(closed.resolve("busy"));
+            for (int i = 0; i < 100 && Files.exists(closed); i++) {
+                Thread.sleep(50);
+            }
+            assertFalse(Files.exists(closed));
+        } finally {
+            journal.stop();
+        }
+    }
+
+    //Запись журнала: действие (1 - лайк, 2 - снятие), id фильма, id пользователя, CRC32C первых 9 байт
+    private static ByteBuffer record(int action, int filmId, int userId) {
+        ByteBuffer record = ByteBuffer.allocate(13);
+        record.put((byte) action).putInt(filmId).putInt(userId);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 0, 9);
+        record.putInt((int) crc.getValue());
+        return record.flip();
+    }
+
+    private void awaitApplied() throws InterruptedException {
+        awaitLag(likeJournal);
+    }
+
+    private static void awaitLag(LikeJournal journal) throws InterruptedException {
+        for (int i = 0; i < 100 && journal.getLag() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, journal.getLag());
+    }
+
+    //Сегменты каталога в порядке записи, когда их наберётся count
+    private static List<Path> awaitSegments(Path directory, int count) throws Exception {
+        List<Path> segments = List.of();
+        for (int i = 0; i < 100 && segments.size() < count; i++) {
+            Thread.sleep(50);
+            try (Stream<Path> files = Files.list(directory)) {
+                segments = files.sorted().toList();
+            }
+        }
+        assertEquals(count, segments.size());
+        return segments;
+    }
+}
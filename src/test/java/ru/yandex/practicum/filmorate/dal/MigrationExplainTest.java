@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Проверяет миграции db/migration и то, что горячие запросы используют индексы.
+//Если запрос перестанет попадать в индекс, план запроса (EXPLAIN) изменится и тест упадёт
+@DisplayName("Миграции БД и планы запросов")
+public class MigrationExplainTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:explain;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    @DisplayName("Миграции создают схему, справочники и демо-данные")
+    void testMigrate_FreshDatabase() {
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"success\" AND \"type\" = 'SQL'", Integer.class));
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM genre", Integer.class));
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT rate FROM films WHERE id = 1", Integer.class));
+    }
+
+    @Test
+    @DisplayName("БД без истории миграций обновляется на месте с сохранением данных")
+    void testMigrate_ExistingDatabase() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1", "sa", "");
+        // БД в том виде, в каком её создавали schema.sql и data.sql приложения до появления миграций
+        new ResourceDatabasePopulator(
+                new ClassPathResource("baseline/schema.sql"),
+                new ClassPathResource("baseline/data.sql")).execute(dataSource);
+        JdbcTemplate legacy = new JdbcTemplate(dataSource);
+        legacy.update("INSERT INTO users (email, login, name, birthday) VALUES ('new@example.com', 'new', 'New', '2001-01-01')");
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("3").load().migrate();
+
+        assertEquals(6, legacy.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+        assertEquals(11, legacy.queryForObject("SELECT COUNT(*) FROM film_likes", Integer.class));
+        // колонки версий добавлены к существующим строкам
+        assertEquals(0, legacy.queryForObject("SELECT version FROM films WHERE id = 1", Integer.class));
+        assertEquals(0, legacy.queryForObject("SELECT version FROM users WHERE id = 6", Integer.class));
+        assertHasIndexes(legacy);
+    }
+
+    @Test
+    @DisplayName("Миграции создают индексы")
+    void testMigrate_Indexes() {
+        assertHasIndexes(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Лайки фильма ищутся по первичному ключу")
+    void testExplain_FilmLikes() {
+        assertUsesIndex(LikesRepository.FILM_LIKES_SQL, "PRIMARY_KEY", 1);
+    }
+
+    @Test
+    @DisplayName("Страница лайков фильма читается по первичному ключу без сортировки")
+    void testExplain_LikesPage() {
+        String plan = explain(jdbcTemplate, LikesRepository.LIKES_PAGE_SQL, 1, 2, 100);
+        assertTrue(plan.contains("PRIMARY_KEY"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    @DisplayName("Лайк удаляется по первичному ключу")
+    void testExplain_DeleteLike() {
+        assertUsesIndex(LikesRepository.DELETE_LIKE_SQL, "PRIMARY_KEY", 1, 1);
+    }
+
+    @Test
+    @DisplayName("Лайки фильмов ищутся по первичному ключу")
+    void testExplain_LikesByFilms() {
+        assertUsesIndex(FilmAssembler.LIKES_BY_FILMS_SQL.formatted("?,?,?"), "PRIMARY_KEY", 1, 2, 3);
+    }
+
+    @Test
+    @DisplayName("Жанры фильмов ищутся по первичному ключу")
+    void testExplain_GenresByFilms() {
+        assertUsesIndex(FilmAssembler.GENRES_BY_FILMS_SQL.formatted("?,?,?"), "PRIMARY_KEY", 1, 2, 3);
+    }
+
+    @Test
+    @DisplayName("Страница фильмов читается по первичному ключу без сортировки")
+    void testExplain_FilmsPage() {
+        String plan = explain(jdbcTemplate, FilmRepository.FILM_COLUMNS + FilmRepository.PAGE_CONDITION, 2, 100);
+        assertTrue(plan.contains("PRIMARY_KEY"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    @DisplayName("Версия фильма ищется по первичному ключу")
+    void testExplain_FilmVersion() {
+        assertUsesIndex(FilmRepository.VERSION_SQL, "PRIMARY_KEY", 1);
+    }
+
+    @Test
+    @DisplayName("Запись о дружбе читается, подтверждается и удаляется по индексу без просмотра таблицы")
+    void testExplain_Friendship() {
+        // чтение H2 может взять и покрывающий индекс user_friends_friend_idx: важно только, что это не tableScan
+        assertNoTableScan(FriendshipRepository.FRIENDSHIP_TYPE_SQL, 1, 2);
+        assertNoTableScan(FriendshipRepository.CONFIRM_FRIENDSHIP_SQL, 2, 1, 2);
+        assertNoTableScan(FriendshipRepository.DELETE_FRIENDSHIP_SQL, 1, 2);
+    }
+
+    //Индексы из V4: запросов к ним на горячем пути сейчас нет (лайки пользователя, друзья и популярные фильмы
+    //читаются из структур в памяти), поэтому проверяется только то, что они созданы
+    private static void assertHasIndexes(JdbcTemplate jdbcTemplate) {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT index_name FROM information_schema.indexes WHERE table_schema = 'PUBLIC'", String.class);
+        assertTrue(indexes.containsAll(List.of("FILM_LIKES_USER_IDX", "FILM_GENRES_GENRE_IDX",
+                "USER_FRIENDS_FRIEND_IDX", "FILMS_RATE_IDX")), indexes.toString());
+    }
+
+    private static void assertUsesIndex(String sql, String index, Object... args) {
+        String plan = explain(jdbcTemplate, sql, args);
+        assertTrue(plan.contains(index), plan);
+    }
+
+    private static void assertNoTableScan(String sql, Object... args) {
+        String plan = explain(jdbcTemplate, sql, args);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    //План запроса с параметрами: запросы берутся из репозиториев как есть, с placeholder-ами
+    private static String explain(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Модель совместных лайков")
+public class CoLikeModelTest {
+
+    @Test
+    @DisplayName("Строка урезается до max-row-size фильмов с наибольшим числом совместных лайков")
+    void testRowTruncated() {
+        CoLikeModel model = new CoLikeModel(null, true, 500, 2);
+        // фильм 1 лайкнули вместе с фильмом 2 трое, с фильмом 3 двое, с фильмами 4-6 по одному
+        likeAll(model, 1, 1, 2, 3, 4);
+        likeAll(model, 2, 1, 2, 3);
+        likeAll(model, 3, 1, 2, 5);
+        likeAll(model, 4, 1, 6);
+
+        assertArrayEquals(new int[]{2, 3}, model.similarFilms(1, 10));
+        // уменьшение отброшенной пары не создаёт отрицательный счётчик
+        model.removeLike(6, 4);
+        assertArrayEquals(new int[]{2, 3}, model.similarFilms(1, 10));
+    }
+
+    @Test
+    @DisplayName("Рекомендации пользователю без уже лайкнутых фильмов")
+    void testRecommendFilms() {
+        CoLikeModel model = new CoLikeModel(null, true, 500, 100);
+        likeAll(model, 1, 1, 2, 3);
+        likeAll(model, 2, 1, 2);
+        likeAll(model, 3, 1, 4);
+
+        // с фильмом 1 фильм 2 лайкнули двое, фильм 3 - один, фильм 4 пользователь уже лайкнул
+        assertArrayEquals(new int[]{2, 3}, model.recommendFilms(3, 10));
+        assertArrayEquals(new int[]{2}, model.recommendFilms(3, 1));
+    }
+
+    @Test
+    @DisplayName("Замена списка лайков фильма убирает пары прежних пользователей")
+    void testReplaceFilmLikes() {
+        CoLikeModel model = new CoLikeModel(null, true, 500, 100);
+        likeAll(model, 1, 1, 2);
+        likeAll(model, 2, 1, 2);
+        likeAll(model, 3, 1, 3);
+
+        model.replaceFilmLikes(2, List.of(1, 2), List.of(2, 3));
+
+        // фильм 2 вместе с фильмом 1 теперь лайкнули пользователи 2 и 3, пары пользователя 1 убраны
+        assertArrayEquals(new int[]{2, 3}, model.similarFilms(1, 10));
+        assertArrayEquals(new int[]{1, 3}, model.similarFilms(2, 10));
+        assertArrayEquals(new int[]{1, 2}, model.similarFilms(3, 10));
+        // у пользователя 1 остался только фильм 1
+        assertArrayEquals(new int[]{2, 3}, model.recommendFilms(1, 10));
+        // повторный лайк и снятие отсутствующего лайка модель не меняют
+        model.addLike(2, 2);
+        model.removeLike(2, 1);
+        assertArrayEquals(new int[]{1, 3}, model.similarFilms(2, 10));
+    }
+
+    @Test
+    @DisplayName("Отключённая модель не строится, не обновляется и ничего не рекомендует")
+    void testDisabled() {
+        CoLikeModel model = new CoLikeModel(null, false, 500, 100);
+        model.rebuild();
+        likeAll(model, 1, 1, 2);
+        likeAll(model, 2, 1, 2);
+        model.replaceFilmLikes(3, List.of(), List.of(1, 2));
+
+        assertEquals(0, model.similarFilms(1, 10).length);
+        assertEquals(0, model.recommendFilms(1, 10).length);
+    }
+
+    private static void likeAll(CoLikeModel model, int userId, int... filmIds) {
+        for (int filmId : filmIds) {
+            model.addLike(filmId, userId);
+        }
+    }
+}
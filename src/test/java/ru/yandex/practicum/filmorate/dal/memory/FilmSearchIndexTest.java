@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.dal.memory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Поисковый индекс фильмов")
+public class FilmSearchIndexTest {
+
+    private final PopularityIndex popularityIndex = new PopularityIndex(null);
+    private final FilmSearchIndex index = new FilmSearchIndex(null, popularityIndex);
+
+    @Test
+    @DisplayName("Слово из трёх и более символов находит термы, в которые оно входит")
+    void testSubstringMatch() {
+        index.put(1, "Матрица", "Хакер узнаёт правду");
+        index.put(2, "Матрица: Перезагрузка", null);
+        index.put(3, "Терминатор", "Киборг из будущего");
+
+        assertEquals(List.of(1, 2), index.search("атри", 10));
+        assertEquals(List.of(1), index.search("УЗНАЕТ", 10));
+        assertEquals(List.of(2), index.search("матр загруз", 10));
+        // короткие слова ищутся только целиком
+        assertEquals(List.of(3), index.search("из", 10));
+        assertEquals(List.of(), index.search("ма", 10));
+        assertEquals(List.of(), index.search("матрица киборг", 10));
+    }
+
+    @Test
+    @DisplayName("Совпадение в названии весит больше, чем в описании")
+    void testWeights() {
+        index.put(1, "Фильм про космос", "Ничего особенного");
+        index.put(2, "Звёзды", "Фильм про космос и звёзды");
+        index.put(3, "Космос", "Космос и звёзды");
+
+        // у фильма 3 слово в названии и описании (3), у фильма 1 - в названии (2), у фильма 2 - в описании (1)
+        assertEquals(List.of(3, 1, 2), index.search("космос", 10));
+        assertEquals(List.of(3, 1), index.search("космос", 2));
+    }
+
+    @Test
+    @DisplayName("При равном весе выше фильм с большим рейтингом, затем с меньшим id")
+    void testTieBreaks() {
+        index.put(1, "Дюна", null);
+        index.put(2, "Дюна", null);
+        index.put(3, "Дюна", null);
+        index.put(4, "Дюна", null);
+        popularityIndex.put(3, 5);
+        popularityIndex.put(4, 5);
+        popularityIndex.put(1, 1);
+
+        assertEquals(List.of(3, 4, 1, 2), index.search("дюна", 10));
+    }
+
+    @Test
+    @DisplayName("Обновлённый фильм ищется по новому тексту и не находится по старому")
+    void testReindexOnUpdate() {
+        index.put(1, "Старое название", "общее описание");
+        index.put(2, "Другой фильм", "общее описание");
+        index.put(3, "Третий фильм", "общее описание");
+
+        index.put(2, "Новое название", "общее описание и продолжение");
+
+        assertEquals(List.of(1), index.search("старое", 10));
+        assertEquals(List.of(2), index.search("новое", 10));
+        assertEquals(List.of(), index.search("другой", 10));
+        assertEquals(List.of(1, 2), index.search("название", 10));
+        assertEquals(List.of(3), index.search("фильм", 10));
+        assertEquals(List.of(2), index.search("продолж", 10));
+        assertEquals(List.of(1, 2, 3), index.search("общее", 10));
+    }
+}
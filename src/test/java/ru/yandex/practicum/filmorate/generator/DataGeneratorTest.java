@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+@DisplayName("Генератор синтетических данных")
+public class DataGeneratorTest {
+
+    private static final DataGenerator.Settings SETTINGS =
+            new DataGenerator.Settings(7, 500, 200, 5000, 6, 1.0, 0.8, 0.5, 1000);
+
+    @Test
+    @DisplayName("Генерация добавляет согласованные данные и повторяется при том же зерне")
+    void testGenerate_Reproducible() {
+        JdbcTemplate first = migratedDatabase("generator1");
+        JdbcTemplate second = migratedDatabase("generator2");
+
+        DataGenerator.Summary summary = new DataGenerator(first).generate(SETTINGS);
+        new DataGenerator(second).generate(SETTINGS);
+
+        // к 5 пользователям и 5 фильмам из демо-данных
+        assertEquals(505, first.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+        assertEquals(205, first.queryForObject("SELECT COUNT(*) FROM films", Integer.class));
+        assertEquals(summary.likes() + 11, first.queryForObject("SELECT COUNT(*) FROM film_likes", Long.class));
+        assertEquals(summary.friendships() + 4, first.queryForObject("SELECT COUNT(*) FROM user_friends", Long.class));
+        assertTrue(summary.likes() > 4000);
+        // рейтинг фильма совпадает с количеством лайков
+        assertEquals(0, first.queryForObject("SELECT COUNT(*) FROM films f "
+                + "WHERE rate <> (SELECT COUNT(*) FROM film_likes l WHERE l.film_id = f.id)", Integer.class));
+        // популярность по степенному закону: у самого популярного фильма лайков во много раз больше среднего
+        assertTrue(first.queryForObject("SELECT MAX(rate) FROM films", Integer.class) > 10 * summary.likes() / 200);
+
+        // снятые на время загрузки индексы и внешние ключи восстановлены
+        assertEquals(2, first.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE INDEX_NAME IN ('FILM_LIKES_USER_IDX', 'USER_FRIENDS_FRIEND_IDX')", Integer.class));
+        assertEquals(7, first.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS "
+                + "WHERE CONSTRAINT_TYPE = 'FOREIGN KEY' AND TABLE_NAME IN ('FILM_GENRES', 'FILM_LIKES', 'USER_FRIENDS')",
+                Integer.class));
+
+        String likes = "SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id";
+        String friends = "SELECT user_id, friend_id, friendship_type_id FROM user_friends ORDER BY user_id, friend_id";
+        assertEquals(first.queryForList(likes), second.queryForList(likes));
+        assertEquals(first.queryForList(friends), second.queryForList(friends));
+        assertEquals(first.queryForList("SELECT * FROM users ORDER BY id"),
+                second.queryForList("SELECT * FROM users ORDER BY id"));
+    }
+
+    @Test
+    @DisplayName("Ошибка при снятии индексов не оставляет БД без уже снятых индексов и ключей")
+    void testGenerate_DropFailureRestoresIndexes() {
+        JdbcTemplate jdbcTemplate = migratedDatabase("generator3");
+        int indexes = countIndexes(jdbcTemplate);
+        int foreignKeys = countForeignKeys(jdbcTemplate);
+        // внешние ключи film_genres уже сняты, когда падает снятие первого индекса
+        JdbcTemplate failing = spy(jdbcTemplate);
+        doThrow(new DataAccessResourceFailureException("БД недоступна"))
+                .when(failing).execute(argThat((String sql) -> sql.startsWith("DROP INDEX ")));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> new DataGenerator(failing).generate(SETTINGS));
+
+        assertEquals(indexes, countIndexes(jdbcTemplate));
+        assertEquals(foreignKeys, countForeignKeys(jdbcTemplate));
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+
+    private static int countIndexes(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE TABLE_NAME IN ('FILM_GENRES', 'FILM_LIKES', 'USER_FRIENDS')", Integer.class);
+    }
+
+    private static int countForeignKeys(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS "
+                + "WHERE CONSTRAINT_TYPE = 'FOREIGN KEY' AND TABLE_NAME IN ('FILM_GENRES', 'FILM_LIKES', 'USER_FRIENDS')",
+                Integer.class);
+    }
+
+    private static JdbcTemplate migratedDatabase(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.logging.http.max-body-size=10")
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@DisplayName("Фоновая запись журнала HTTP-запросов")
+public class AsyncHttpLogSinkTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AsyncHttpLogSink httpLogSink;
+
+    @Test
+    @DisplayName("Запрос и ответ записываются в фоне, тело обрезается")
+    void testWrite_Async(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/mpa/{id}", 3)).andExpect(status().isOk());
+
+        // поток записи опрашивает очередь каждые 100 мс
+        for (int i = 0; i < 50 && !output.getOut().contains("\"status\":200"); i++) {
+            Thread.sleep(100);
+        }
+        String response = output.getOut().lines()
+                .filter(line -> line.contains("\"type\":\"response\""))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(output.getOut().contains("\"uri\":\"http://localhost/mpa/3\""));
+        // полный ответ {"id":3,"name":"PG-13"}, в журнал попадают первые 10 байт строкой
+        assertTrue(response.contains("\"body\":\"{\\\"id\\\":3,\\\"n...\""), response);
+        assertEquals(0, httpLogSink.getDropped());
+    }
+}
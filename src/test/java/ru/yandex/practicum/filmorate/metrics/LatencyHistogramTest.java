@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Гистограмма времени выполнения")
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Квантили с погрешностью не больше 1/16, точные количество, сумма и максимум")
+    void testQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1..1000 мкс, каждый десятый вызов с ошибкой
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L, i % 10 == 0);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(500_500_000L, snapshot.sumNanos());
+        assertEquals(1_000_000L, snapshot.maxNanos());
+        assertEquals(100, snapshot.errors());
+        assertWithin(500_000, snapshot.quantile(0.5));
+        assertWithin(950_000, snapshot.quantile(0.95));
+        assertWithin(990_000, snapshot.quantile(0.99));
+        assertEquals(1_000_000L, snapshot.quantile(1.0));
+    }
+
+    @Test
+    @DisplayName("Пустая гистограмма и значения за пределами корзин")
+    void testBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().quantile(0.99));
+
+        histogram.record(-5, false);
+        histogram.record(7, false);
+        histogram.record(Long.MAX_VALUE, false);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.count());
+        assertEquals(0, snapshot.quantile(0.1));
+        assertEquals(7, snapshot.quantile(0.5));
+        assertEquals(Long.MAX_VALUE, snapshot.maxNanos());
+        assertTrue(snapshot.quantile(1.0) >= (1L << 39));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "ожидалось " + expected + " с точностью 1/16, получено " + actual);
+    }
+}
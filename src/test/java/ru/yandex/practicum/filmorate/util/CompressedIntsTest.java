@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Сжатый набор int")
+public class CompressedIntsTest {
+
+    @Test
+    @DisplayName("Значения и разности от 128 занимают несколько байт")
+    void testMultiByteValues() {
+        CompressedInts values = new CompressedInts();
+        values.add(0);
+        values.add(127);
+        values.add(128);
+        values.add(20_000);
+        values.add(Integer.MAX_VALUE);
+
+        assertArrayEquals(new int[]{0, 127, 128, 20_000, Integer.MAX_VALUE}, values.toArray());
+        assertEquals(5, values.size());
+        // 0, 127 и 1 - по байту, 19872 - три байта, разность до MAX_VALUE - пять байт
+        assertEquals(11, values.byteSize());
+    }
+
+    @Test
+    @DisplayName("Вставка и удаление в середине сохраняют порядок")
+    void testInsertAndRemoveInMiddle() {
+        CompressedInts values = new CompressedInts();
+        values.add(10);
+        values.add(300);
+        values.add(70_000);
+
+        values.add(200);
+        values.add(100_000);
+        values.add(5);
+        // повтор не добавляется
+        values.add(300);
+        assertArrayEquals(new int[]{5, 10, 200, 300, 70_000, 100_000}, values.toArray());
+
+        values.remove(300);
+        values.remove(5);
+        // отсутствующее значение игнорируется
+        values.remove(301);
+        assertArrayEquals(new int[]{10, 200, 70_000, 100_000}, values.toArray());
+        assertEquals(4, values.size());
+
+        // после пересборки значения снова дописываются в конец
+        values.add(100_001);
+        values.trim();
+        assertArrayEquals(new int[]{10, 200, 70_000, 100_000, 100_001}, values.toArray());
+
+        values.remove(10);
+        values.remove(200);
+        values.remove(70_000);
+        values.remove(100_000);
+        values.remove(100_001);
+        assertTrue(values.isEmpty());
+        assertArrayEquals(new int[0], values.toArray());
+    }
+
+    @Test
+    @DisplayName("encode и decode возвращают исходный массив")
+    void testEncodeDecode() {
+        int[] values = {0, 1, 129, 16_384, 16_385, 2_097_152, Integer.MAX_VALUE};
+
+        byte[] encoded = CompressedInts.encode(values);
+
+        assertArrayEquals(values, CompressedInts.decode(encoded));
+        assertArrayEquals(new int[0], CompressedInts.decode(CompressedInts.encode(new int[0])));
+    }
+
+    @Test
+    @DisplayName("Отрицательное значение не принимается")
+    void testNegativeValue() {
+        CompressedInts values = new CompressedInts();
+
+        assertThrows(IllegalArgumentException.class, () -> values.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> CompressedInts.encode(new int[]{-5, 1}));
+    }
+}
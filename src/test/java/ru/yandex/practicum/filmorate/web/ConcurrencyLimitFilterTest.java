@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.web;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Ограничение одновременных запросов")
+public class ConcurrencyLimitFilterTest {
+
+    @Test
+    @DisplayName("Запрос сверх лимита ждёт в очереди и получает 503 по таймауту")
+    void testLimit_QueueTimeout() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // первый запрос занимает единственное место, пока его не отпустят
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/films"), first, (request, response) -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films"), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+
+        // после завершения первого запроса место освобождается
+        release.countDown();
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        for (int i = 0; i < 50 && accepted.getStatus() != 200; i++) {
+            accepted = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/films"), accepted, new MockFilterChain());
+        }
+        assertEquals(200, accepted.getStatus());
+        assertEquals(200, first.getStatus());
+    }
+}